@@ -5,14 +5,20 @@ import io.metersphere.plugin.platform.spi.BaseClient;
 import io.metersphere.plugin.sdk.util.MSPluginException;
 import io.metersphere.plugin.sdk.util.PluginLogUtils;
 import io.metersphere.plugin.sdk.util.PluginUtils;
+import io.metersphere.plugin.tapd.client.TapdRateLimiter.Priority;
+import io.metersphere.plugin.tapd.constants.TapdPluginProperties;
 import io.metersphere.plugin.tapd.constants.TapdSystemType;
 import io.metersphere.plugin.tapd.constants.TapdUrl;
 import io.metersphere.plugin.tapd.domain.TapdIntegrationConfig;
 import io.metersphere.plugin.tapd.domain.TapdProject;
 import io.metersphere.plugin.tapd.domain.TapdTransitionStatusItem;
+import io.metersphere.plugin.tapd.domain.TapdWorkflow;
 import io.metersphere.plugin.tapd.domain.response.TapdBaseResponse;
 import io.metersphere.plugin.tapd.domain.response.TapdBugResponse;
 import io.metersphere.plugin.tapd.domain.response.TapdStoryResponse;
+import io.metersphere.plugin.tapd.utils.HttpClientUtils;
+import io.metersphere.plugin.tapd.utils.SpoolDownloadUtils;
+import io.metersphere.plugin.tapd.utils.TtlCache;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.http.*;
 import org.springframework.util.CollectionUtils;
@@ -21,21 +27,33 @@ import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RequestCallback;
 
 import java.io.InputStream;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 public class TapdClient extends BaseClient {
 
-	protected static String ENDPOINT = "https://api.tapd.cn";
+	protected static final String ENDPOINT = "https://api.tapd.cn";
 
-	protected static String BASE_URL = "https://www.tapd.cn";
+	protected static final String BASE_URL = "https://www.tapd.cn";
 
-	protected static String USERNAME;
+	private static final TtlCache<TapdWorkflow> WORKFLOW_CACHE = new TtlCache<>("tapd workflow cache", TapdPluginProperties.WORKFLOW_CACHE_TTL_SECONDS,
+			TapdPluginProperties.WORKFLOW_CACHE_MAX_STALE_SECONDS, TapdPluginProperties.WORKFLOW_CACHE_MAX_ENTRIES, Long.MAX_VALUE, TapdWorkflow::estimateBytes);
 
-	protected static String PASSWORD;
+	private static final TtlCache<List<SelectOption>> OWNER_CACHE = new TtlCache<>("tapd owner cache", TapdPluginProperties.OWNER_CACHE_TTL_SECONDS,
+			TapdPluginProperties.OWNER_CACHE_MAX_STALE_SECONDS, TapdPluginProperties.OWNER_CACHE_MAX_ENTRIES, Long.MAX_VALUE, options -> 64L + 160L * options.size());
+
+	/**
+	 * 认证信息
+	 */
+	protected volatile TapdClientContext context;
 
 	public TapdClient(TapdIntegrationConfig integrationConfig) {
+		restTemplate = HttpClientUtils.getRestTemplate();
 		initConfig(integrationConfig);
 	}
 
@@ -48,8 +66,7 @@ public class TapdClient extends BaseClient {
 		if (config == null) {
 			throw new MSPluginException("Tapd服务集成配置为空");
 		}
-		USERNAME = config.getAccount();
-		PASSWORD = config.getPassword();
+		context = new TapdClientContext(config.getAccount(), config.getPassword());
 	}
 
 	/**
@@ -57,9 +74,10 @@ public class TapdClient extends BaseClient {
 	 */
 	public void auth() {
 		try {
-			restTemplate.exchange(ENDPOINT + TapdUrl.AUTH, HttpMethod.GET, getAuthHttpEntity(), String.class);
+			exchange(Priority.INTERACTIVE, ENDPOINT + TapdUrl.AUTH, HttpMethod.GET, getAuthHttpEntity(), String.class);
 		} catch (Exception e) {
-			if (e instanceof HttpClientErrorException && ((HttpClientErrorException) e).getStatusCode().is4xxClientError()) {
+			if (e instanceof HttpClientErrorException && ((HttpClientErrorException) e).getStatusCode().is4xxClientError()
+					&& !(e instanceof HttpClientErrorException.TooManyRequests)) {
 				throw new MSPluginException("TAPD认证失败: API账号或口令错误");
 			} else {
 				PluginLogUtils.error(e);
@@ -76,7 +94,7 @@ public class TapdClient extends BaseClient {
 	 */
 	public TapdProject getProject(String projectKey) {
 		try {
-			ResponseEntity<TapdBaseResponse> response = restTemplate.exchange(ENDPOINT + TapdUrl.GET_PROJECT_INFO, HttpMethod.GET, getAuthHttpEntity(), TapdBaseResponse.class, projectKey);
+			ResponseEntity<TapdBaseResponse> response = exchange(Priority.INTERACTIVE, ENDPOINT + TapdUrl.GET_PROJECT_INFO, HttpMethod.GET, getAuthHttpEntity(), TapdBaseResponse.class, projectKey);
 			if (response.getBody() == null) {
 				return null;
 			}
@@ -90,27 +108,14 @@ public class TapdClient extends BaseClient {
 	/**
 	 * 获取起始状态流
 	 *
-	 * @param systemType 系统类型
-	 * @param projectKey 项目ID
-	 * @return
+	 * @param systemType  系统类型
+	 * @param projectKey  项目ID
+	 * @param storyTypeId 需求类别ID, 仅需求使用
+	 * @return 起始状态
 	 */
 	public SelectOption getFirstStepWorkFlow(String systemType, String projectKey, String storyTypeId) {
-		SelectOption statusOption = new SelectOption();
 		try {
-			String firstStepUrl = ENDPOINT + TapdUrl.GET_WORKFLOW_FIRST_STEP;
-			if (StringUtils.equals(TapdSystemType.STORY, systemType)) {
-				firstStepUrl = firstStepUrl + "&workitem_type_id=" + storyTypeId;
-			}
-			ResponseEntity<TapdBaseResponse> response = restTemplate.exchange(firstStepUrl, HttpMethod.GET, getAuthHttpEntity(), TapdBaseResponse.class, systemType, projectKey);
-			if (response.getBody() == null) {
-				return null;
-			}
-			Map<String, String> statusMap = PluginUtils.parseMap(PluginUtils.toJSONString(response.getBody().getData()));
-			statusMap.keySet().forEach(statusKey -> {
-				statusOption.setText(statusMap.get(statusKey));
-				statusOption.setValue(statusKey);
-			});
-			return statusOption;
+			return getWorkflow(systemType, projectKey, storyTypeId).getFirstStepOption();
 		} catch (Exception e) {
 			PluginLogUtils.error(e.getMessage(), e);
 			return null;
@@ -120,41 +125,15 @@ public class TapdClient extends BaseClient {
 	/**
 	 * 获取状态流, 流转细则
 	 *
-	 * @param systemType 系统类型
-	 * @param projectKey 项目ID
-	 * @return
+	 * @param systemType     系统类型
+	 * @param projectKey     项目ID
+	 * @param storyTypeId    需求类别ID, 仅需求使用
+	 * @param previousStatus 当前状态
+	 * @return 可流转的状态
 	 */
 	public List<SelectOption> getWorkFlowTransition(String systemType, String projectKey, String storyTypeId, String previousStatus) {
-		List<SelectOption> statusOption = new ArrayList<>();
 		try {
-			String getTransitionUrl = ENDPOINT + TapdUrl.GET_WORKFLOW_TRANSITIONS;
-			if (StringUtils.equals(TapdSystemType.STORY, systemType)) {
-				getTransitionUrl = getTransitionUrl + "&workitem_type_id=" + storyTypeId;
-			}
-			ResponseEntity<TapdBaseResponse> response = restTemplate.exchange(ENDPOINT + TapdUrl.GET_WORKFLOW_TRANSITIONS, HttpMethod.GET, getAuthHttpEntity(), TapdBaseResponse.class, systemType, projectKey);
-			if (response.getBody() == null) {
-				return null;
-			}
-			List<TapdTransitionStatusItem> statusTransitions = PluginUtils.parseArray(PluginUtils.toJSONString(response.getBody().getData()), TapdTransitionStatusItem.class);
-			if (CollectionUtils.isEmpty(statusTransitions)) {
-				return null;
-			}
-			// 获取工作流状态中英文名对应关系
-			ResponseEntity<TapdBaseResponse> statusDictResponse = restTemplate.exchange(ENDPOINT + TapdUrl.GET_WORKFLOW_STATUS_MAP, HttpMethod.GET, getAuthHttpEntity(), TapdBaseResponse.class, systemType, projectKey);
-			Map<String, String> statusDictMap = PluginUtils.parseMap(PluginUtils.toJSONString(statusDictResponse.getBody().getData()));
-			List<String> transitionStatus = new ArrayList<>();
-			if (StringUtils.isNotBlank(previousStatus)) {
-				transitionStatus = statusTransitions.stream().filter(transition -> StringUtils.equals(transition.getStepPrevious(), previousStatus)).map(TapdTransitionStatusItem::getStepNext).distinct().collect(Collectors.toList());
-			} else {
-				transitionStatus = statusTransitions.stream().map(TapdTransitionStatusItem::getStepPrevious).distinct().collect(Collectors.toList());
-			}
-			transitionStatus.forEach(statusKey -> {
-				SelectOption selectOption = new SelectOption();
-				selectOption.setText(statusDictMap.get(statusKey) == null ? statusKey : statusDictMap.get(statusKey));
-				selectOption.setValue(statusKey);
-				statusOption.add(selectOption);
-			});
-			return statusOption;
+			return getWorkflow(systemType, projectKey, storyTypeId).getTransitionOptions(previousStatus);
 		} catch (Exception e) {
 			PluginLogUtils.error(e.getMessage(), e);
 			return null;
@@ -162,30 +141,121 @@ public class TapdClient extends BaseClient {
 	}
 
 	/**
-	 * 获取项目成员列表
+	 * 获取工作流元数据(缓存), 缓存Key {账号, 系统类型, 项目, 需求类别}
 	 *
-	 * @param projectKey
-	 * @return
+	 * @param systemType  系统类型
+	 * @param projectKey  项目ID
+	 * @param storyTypeId 需求类别ID, 仅需求使用
+	 * @return 工作流
+	 */
+	public TapdWorkflow getWorkflow(String systemType, String projectKey, String storyTypeId) {
+		String workitemTypeId = StringUtils.equals(TapdSystemType.STORY, systemType) ? StringUtils.defaultString(storyTypeId) : StringUtils.EMPTY;
+		return WORKFLOW_CACHE.get(getWorkflowCacheKey(systemType, projectKey) + workitemTypeId, () -> loadWorkflow(systemType, projectKey, workitemTypeId));
+	}
+
+	/**
+	 * 使项目的工作流缓存失效(所有需求类别)
+	 *
+	 * @param systemType 系统类型
+	 * @param projectKey 项目ID
+	 */
+	public void invalidateWorkflow(String systemType, String projectKey) {
+		String keyPrefix = getWorkflowCacheKey(systemType, projectKey);
+		WORKFLOW_CACHE.invalidateIf(key -> key.startsWith(keyPrefix));
+	}
+
+	private String getWorkflowCacheKey(String systemType, String projectKey) {
+		return context.getCacheKey() + "|" + systemType + "|" + projectKey + "|";
+	}
+
+	/**
+	 * 查询起始状态、流转细则及状态字典, 构建工作流
+	 *
+	 * @param systemType     系统类型
+	 * @param projectKey     项目ID
+	 * @param workitemTypeId 需求类别ID, 为空时不区分类别
+	 * @return 工作流
+	 */
+	private TapdWorkflow loadWorkflow(String systemType, String projectKey, String workitemTypeId) {
+		Map<String, String> firstStepMap = queryWorkflowMap(TapdUrl.GET_WORKFLOW_FIRST_STEP, systemType, projectKey, workitemTypeId);
+		ResponseEntity<TapdBaseResponse> transitionResponse = exchangeWorkflow(TapdUrl.GET_WORKFLOW_TRANSITIONS, systemType, projectKey, workitemTypeId);
+		List<TapdTransitionStatusItem> statusTransitions = transitionResponse.getBody() == null ? List.of() :
+				PluginUtils.parseArray(PluginUtils.toJSONString(transitionResponse.getBody().getData()), TapdTransitionStatusItem.class);
+		// 获取工作流状态中英文名对应关系
+		Map<String, String> statusDictMap = new HashMap<>();
+		if (!CollectionUtils.isEmpty(statusTransitions)) {
+			statusDictMap.putAll(queryWorkflowMap(TapdUrl.GET_WORKFLOW_STATUS_MAP, systemType, projectKey, workitemTypeId));
+		}
+		String firstStatus = null;
+		for (Map.Entry<String, String> entry : firstStepMap.entrySet()) {
+			firstStatus = entry.getKey();
+			statusDictMap.putIfAbsent(entry.getKey(), entry.getValue());
+		}
+		return new TapdWorkflow(firstStatus, statusDictMap, statusTransitions);
+	}
+
+	private Map<String, String> queryWorkflowMap(String url, String systemType, String projectKey, String workitemTypeId) {
+		ResponseEntity<TapdBaseResponse> response = exchangeWorkflow(url, systemType, projectKey, workitemTypeId);
+		if (response.getBody() == null || response.getBody().getData() == null) {
+			return Map.of();
+		}
+		return PluginUtils.parseMap(PluginUtils.toJSONString(response.getBody().getData()));
+	}
+
+	private ResponseEntity<TapdBaseResponse> exchangeWorkflow(String url, String systemType, String projectKey, String workitemTypeId) {
+		if (StringUtils.isBlank(workitemTypeId)) {
+			return exchange(Priority.INTERACTIVE, ENDPOINT + url, HttpMethod.GET, getAuthHttpEntity(), TapdBaseResponse.class, systemType, projectKey);
+		}
+		return exchange(Priority.INTERACTIVE, ENDPOINT + url + TapdUrl.WORKITEM_TYPE_PARAM, HttpMethod.GET, getAuthHttpEntity(), TapdBaseResponse.class, systemType, projectKey, workitemTypeId);
+	}
+
+	/**
+	 * 获取项目成员列表(缓存), 缓存Key {账号, 项目}
+	 *
+	 * @param projectKey 项目Key
+	 * @return 成员下拉选项, 只读
 	 */
 	public List<SelectOption> getProjectUsers(String projectKey) {
-		List<SelectOption> userOptions = new ArrayList<>();
+		return OWNER_CACHE.get(getOwnerCacheKey(projectKey), () -> loadProjectUsers(projectKey));
+	}
+
+	/**
+	 * 后台预加载项目成员列表
+	 *
+	 * @param projectKey 项目Key
+	 */
+	public void refreshProjectUsers(String projectKey) {
+		OWNER_CACHE.refreshAsync(getOwnerCacheKey(projectKey), () -> loadProjectUsers(projectKey));
+	}
+
+	private String getOwnerCacheKey(String projectKey) {
+		return context.getCacheKey() + "|" + projectKey;
+	}
+
+	/**
+	 * 查询项目成员列表
+	 *
+	 * @param projectKey 项目Key
+	 * @return 成员下拉选项
+	 */
+	private List<SelectOption> loadProjectUsers(String projectKey) {
 		try {
-			ResponseEntity<TapdBaseResponse> response = restTemplate.exchange(ENDPOINT + TapdUrl.GET_PROJECT_USERS, HttpMethod.GET, getAuthHttpEntity(), TapdBaseResponse.class, projectKey);
-			if (response.getBody() == null) {
-				throw new MSPluginException("获取Tapd项目成员列表为空!");
-			}
-			List<Map> userMaps = PluginUtils.parseArray(PluginUtils.toJSONString(response.getBody().getData()), Map.class);
-			if (CollectionUtils.isEmpty(userMaps)) {
+			ResponseEntity<TapdBaseResponse> response = exchange(Priority.INTERACTIVE, ENDPOINT + TapdUrl.GET_PROJECT_USERS, HttpMethod.GET, getAuthHttpEntity(), TapdBaseResponse.class, projectKey);
+			if (response.getBody() == null || !(response.getBody().getData() instanceof List<?> userMaps) || CollectionUtils.isEmpty(userMaps)) {
 				throw new MSPluginException("获取Tapd项目成员列表为空!");
 			}
-			userMaps.forEach(userMap -> {
-				Map<String, String> user = PluginUtils.parseMap(PluginUtils.toJSONString(userMap.get("UserWorkspace")));
+			List<SelectOption> userOptions = new ArrayList<>(userMaps.size());
+			for (Object userMap : userMaps) {
+				if (!(userMap instanceof Map<?, ?> userWorkspace) || !(userWorkspace.get("UserWorkspace") instanceof Map<?, ?> user)) {
+					continue;
+				}
+				String userName = Objects.toString(user.get("user"), null);
 				SelectOption selectOption = new SelectOption();
-				selectOption.setText(user.get("user"));
-				selectOption.setValue(user.get("user"));
+				selectOption.setText(userName);
+				selectOption.setValue(userName);
 				userOptions.add(selectOption);
-			});
-			return userOptions;
+			}
+			return List.copyOf(userOptions);
 		} catch (Exception e) {
 			PluginLogUtils.error(e.getMessage(), e);
 			throw new MSPluginException("获取Tapd项目成员列表异常!");
@@ -193,43 +263,72 @@ public class TapdClient extends BaseClient {
 	}
 
 	/**
-	 * 分页获取项目的需求
+	 * 获取项目的全部需求, 子需求(支持多级)挂在父需求下
 	 *
 	 * @param projectKey 项目Key
-	 * @param startPage  开始页码
-	 * @param pageSize   每页Size
-	 * @return
+	 * @return 顶层需求集合
 	 */
-	public List<TapdStoryResponse> getProjectStorys(String projectKey, Integer startPage, Integer pageSize) {
-		List<TapdStoryResponse> storys = new ArrayList<>();
+	public List<TapdStoryResponse> getProjectStorys(String projectKey) {
+		List<TapdStoryResponse> tmpStorys = new ArrayList<>();
+		int page = 1, querySize;
+		do {
+			List<TapdStoryResponse> pageStorys = queryStorys(Priority.BULK, TapdUrl.GET_PROJECT_STORY, projectKey, page, TapdUrl.MAX_LIMIT);
+			querySize = pageStorys.size();
+			tmpStorys.addAll(pageStorys);
+			page++;
+		} while (querySize >= TapdUrl.MAX_LIMIT);
+
+		return buildStoryTree(tmpStorys);
+	}
+
+	/**
+	 * 根据parent_id构建需求树, 按ID索引, 线性时间;
+	 * 父需求不在列表中的子需求(如父需求已删除)作为顶层需求展示
+	 *
+	 * @param storys 需求集合
+	 * @return 顶层需求集合, 保持原有顺序
+	 */
+	protected List<TapdStoryResponse> buildStoryTree(List<TapdStoryResponse> storys) {
+		Map<String, TapdStoryResponse> storyMap = new HashMap<>(storys.size() * 2);
+		storys.forEach(story -> storyMap.put(story.getId(), story));
+		List<TapdStoryResponse> rootStorys = new ArrayList<>();
+		for (TapdStoryResponse story : storys) {
+			String parentId = story.getParent_id();
+			TapdStoryResponse parent = StringUtils.isBlank(parentId) || StringUtils.equals(parentId, "0") ? null : storyMap.get(parentId);
+			if (parent == null || parent == story) {
+				rootStorys.add(story);
+			} else {
+				if (parent.getChildren() == null) {
+					parent.setChildren(new ArrayList<>());
+				}
+				parent.getChildren().add(story);
+			}
+		}
+		return rootStorys;
+	}
+
+	/**
+	 * 查询需求列表
+	 *
+	 * @param priority     优先级, 全量加载使用批量优先级, 避免占用交互请求的令牌
+	 * @param url          请求地址
+	 * @param uriVariables 请求参数
+	 * @return 需求集合
+	 */
+	private List<TapdStoryResponse> queryStorys(Priority priority, String url, Object... uriVariables) {
 		try {
-			ResponseEntity<TapdBaseResponse> response = restTemplate.exchange(ENDPOINT + TapdUrl.GET_PROJECT_STORY, HttpMethod.GET, getAuthHttpEntity(),
-					TapdBaseResponse.class, projectKey, startPage, pageSize);
-			if (response.getBody() == null) {
+			ResponseEntity<TapdBaseResponse> response = exchange(priority, ENDPOINT + url, HttpMethod.GET, getAuthHttpEntity(),
+					TapdBaseResponse.class, uriVariables);
+			if (response.getBody() == null || response.getBody().getData() == null) {
 				return new ArrayList<>();
 			}
 			List<Map> storyMaps = PluginUtils.parseArray(PluginUtils.toJSONString(response.getBody().getData()), Map.class);
-			List<TapdStoryResponse> tmpStorys = new ArrayList<>();
-			storyMaps.forEach(storyMap -> {
-				TapdStoryResponse story = PluginUtils.parseObject(PluginUtils.toJSONString(storyMap.get("Story")), TapdStoryResponse.class);
-				tmpStorys.add(story);
-			});
-			List<TapdStoryResponse> childStorys = tmpStorys.stream().filter(story -> StringUtils.isBlank(story.getParent_id()) || !StringUtils.equals(story.getParent_id(), "0")).collect(Collectors.toList());
-			List<TapdStoryResponse> parentStorys = tmpStorys.stream().filter(story -> StringUtils.isNotBlank(story.getParent_id()) && StringUtils.equals(story.getParent_id(), "0")).collect(Collectors.toList());
-			Iterator<TapdStoryResponse> iterator = parentStorys.iterator();
-			while (iterator.hasNext()) {
-				TapdStoryResponse story = iterator.next();
-				if (StringUtils.isNotBlank(story.getChildren_id()) && !StringUtils.equalsAny(story.getChildren_id(), "|", "||")) {
-					List<String> childStoryIds = List.of(story.getChildren_id().replaceAll("\\|\\|", StringUtils.EMPTY).split("\\|"));
-					List<TapdStoryResponse> filterChilds = childStorys.stream().filter(filterStory -> childStoryIds.contains(filterStory.getId())).collect(Collectors.toList());
-					story.setChildren(filterChilds);
-				}
-				storys.add(story);
-			}
+			return storyMaps.stream().map(storyMap -> PluginUtils.parseObject(PluginUtils.toJSONString(storyMap.get("Story")), TapdStoryResponse.class))
+					.collect(Collectors.toList());
 		} catch (Exception e) {
 			PluginLogUtils.error(e.getMessage(), e);
+			throw new MSPluginException("获取Tapd需求列表异常");
 		}
-		return storys;
 	}
 
 	/**
@@ -242,7 +341,7 @@ public class TapdClient extends BaseClient {
 	public TapdBugResponse editBug(MultiValueMap<String, Object> paramMap, String projectKey) {
 		paramMap.add("workspace_id", projectKey);
 		try {
-			ResponseEntity<TapdBaseResponse> response = restTemplate.exchange(ENDPOINT + TapdUrl.EDIT_BUG, HttpMethod.POST,
+			ResponseEntity<TapdBaseResponse> response = exchange(Priority.INTERACTIVE, ENDPOINT + TapdUrl.EDIT_BUG, HttpMethod.POST,
 					getPostAuthHttpEntityForParam(paramMap), TapdBaseResponse.class);
 			return PluginUtils.parseObject(PluginUtils.toJSONString(PluginUtils.parseMap(
 					PluginUtils.toJSONString(response.getBody().getData())).get("Bug")), TapdBugResponse.class);
@@ -262,7 +361,7 @@ public class TapdClient extends BaseClient {
 	 */
 	public List<Map> getBugForPage(String projectKey, int page, int limit) {
 		try {
-			ResponseEntity<TapdBaseResponse> response = restTemplate.exchange(ENDPOINT + TapdUrl.LIST_BUG, HttpMethod.GET,
+			ResponseEntity<TapdBaseResponse> response = exchange(Priority.BULK, ENDPOINT + TapdUrl.LIST_BUG, HttpMethod.GET,
 					getAuthHttpEntity(), TapdBaseResponse.class, projectKey, page, limit);
 			if (response.getBody() == null || response.getBody().getData() == null) {
 				return new ArrayList<>();
@@ -277,6 +376,52 @@ public class TapdClient extends BaseClient {
 		}
 	}
 
+	/**
+	 * 根据ID批量查询缺陷, ID数量不能超过200
+	 *
+	 * @param projectKey 项目Key
+	 * @param bugIds     缺陷ID集合
+	 * @return 缺陷集合
+	 */
+	public List<Map> getBugByIds(String projectKey, List<String> bugIds) {
+		try {
+			ResponseEntity<TapdBaseResponse> response = exchange(Priority.BULK, ENDPOINT + TapdUrl.LIST_BUG_BY_IDS, HttpMethod.GET,
+					getAuthHttpEntity(), TapdBaseResponse.class, projectKey, String.join(",", bugIds), bugIds.size());
+			if (response.getBody() == null || response.getBody().getData() == null) {
+				return new ArrayList<>();
+			}
+			List<Map> bugMaps = PluginUtils.parseArray(PluginUtils.toJSONString(response.getBody().getData()), Map.class);
+			return bugMaps.stream().map(bugMap -> (Map) bugMap.get("Bug")).collect(Collectors.toList());
+		} catch (Exception e) {
+			PluginLogUtils.error(e.getMessage(), e);
+			throw new MSPluginException("根据ID查询Tapd缺陷异常");
+		}
+	}
+
+	/**
+	 * 分页查询指定时间之后修改的缺陷, 按修改时间倒序
+	 *
+	 * @param projectKey    项目Key
+	 * @param page          页码
+	 * @param limit         每页数量
+	 * @param modifiedSince 修改时间 yyyy-MM-dd HH:mm:ss
+	 * @return 缺陷集合
+	 */
+	public List<Map> getModifiedBugForPage(String projectKey, int page, int limit, String modifiedSince) {
+		try {
+			ResponseEntity<TapdBaseResponse> response = exchange(Priority.BULK, ENDPOINT + TapdUrl.LIST_BUG_MODIFIED, HttpMethod.GET,
+					getAuthHttpEntity(), TapdBaseResponse.class, projectKey, ">=" + modifiedSince, "modified desc", page, limit);
+			if (response.getBody() == null || response.getBody().getData() == null) {
+				return new ArrayList<>();
+			}
+			List<Map> bugMaps = PluginUtils.parseArray(PluginUtils.toJSONString(response.getBody().getData()), Map.class);
+			return bugMaps.stream().map(bugMap -> (Map) bugMap.get("Bug")).collect(Collectors.toList());
+		} catch (Exception e) {
+			PluginLogUtils.error(e.getMessage(), e);
+			throw new MSPluginException("分页查询Tapd缺陷异常");
+		}
+	}
+
 	/**
 	 * 获取图片下载链接
 	 *
@@ -286,7 +431,7 @@ public class TapdClient extends BaseClient {
 	 */
 	public String getPicTmpDownUrl(String projectKey, String imagePath) {
 		try {
-			ResponseEntity<TapdBaseResponse> response = restTemplate.exchange(ENDPOINT + TapdUrl.GET_DOWNLOAD_URL, HttpMethod.GET,
+			ResponseEntity<TapdBaseResponse> response = exchange(Priority.BULK, ENDPOINT + TapdUrl.GET_DOWNLOAD_URL, HttpMethod.GET,
 					getAuthHttpEntity(), TapdBaseResponse.class, projectKey, imagePath);
 			if (response.getBody() == null || response.getBody().getData() == null) {
 				return null;
@@ -306,6 +451,12 @@ public class TapdClient extends BaseClient {
 	 * @param inputStreamHandler 流处理
 	 */
 	public void getAttachmentBytes(String fileDownUrl, Consumer<InputStream> inputStreamHandler) {
+		if (TapdPluginProperties.ATTACHMENT_SPOOL_ENABLED) {
+			// 先下载至本地临时文件, 尽快释放连接, 中断时断点续传
+			SpoolDownloadUtils.download("tapd file " + StringUtils.substringBefore(fileDownUrl, "?"), TapdPluginProperties.ATTACHMENT_DOWNLOAD_MAX_RETRIES,
+					(offset, extractor) -> restTemplate.execute(fileDownUrl, HttpMethod.GET, request -> SpoolDownloadUtils.prepareRequest(request, offset), extractor), inputStreamHandler);
+			return;
+		}
 		RequestCallback requestCallback = request -> {
 			// 定义请求头的接收类型
 			request.getHeaders().setAccept(Arrays.asList(MediaType.APPLICATION_OCTET_STREAM, MediaType.ALL));
@@ -319,6 +470,55 @@ public class TapdClient extends BaseClient {
 				});
 	}
 
+	/**
+	 * 经限流后请求TAPD API, 返回429时按Retry-After等待后重试
+	 *
+	 * @param priority      优先级
+	 * @param url           请求地址
+	 * @param method        请求方法
+	 * @param requestEntity 请求体
+	 * @param responseType  返回类型
+	 * @param uriVariables  请求参数
+	 * @return 请求返回
+	 */
+	private <T> ResponseEntity<T> exchange(Priority priority, String url, HttpMethod method, HttpEntity<?> requestEntity, Class<T> responseType, Object... uriVariables) {
+		TapdRateLimiter rateLimiter = TapdRateLimiter.getInstance(context.getAccount());
+		for (int attempt = 0; ; attempt++) {
+			rateLimiter.acquire(priority);
+			try {
+				ResponseEntity<T> response = restTemplate.exchange(url, method, requestEntity, responseType, uriVariables);
+				rateLimiter.onSuccess();
+				return response;
+			} catch (HttpClientErrorException.TooManyRequests e) {
+				rateLimiter.onTooManyRequests(parseRetryAfterMillis(e.getResponseHeaders()));
+				if (attempt >= TapdPluginProperties.RATE_LIMIT_MAX_RETRIES) {
+					throw e;
+				}
+			}
+		}
+	}
+
+	/**
+	 * 解析Retry-After响应头(秒数或HTTP日期)
+	 *
+	 * @param headers 响应头
+	 * @return 等待时间(毫秒), 未指定时返回0
+	 */
+	private long parseRetryAfterMillis(HttpHeaders headers) {
+		String retryAfter = headers == null ? null : StringUtils.trim(headers.getFirst(HttpHeaders.RETRY_AFTER));
+		if (StringUtils.isBlank(retryAfter)) {
+			return 0;
+		}
+		if (StringUtils.isNumeric(retryAfter)) {
+			return TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter));
+		}
+		try {
+			return Math.max(0, ZonedDateTime.parse(retryAfter, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli() - System.currentTimeMillis());
+		} catch (DateTimeParseException e) {
+			return 0;
+		}
+	}
+
 	/**
 	 * 获取认证实体
 	 *
@@ -343,7 +543,17 @@ public class TapdClient extends BaseClient {
 	 * @return
 	 */
 	protected HttpHeaders getAuthHeader() {
-		return getBasicHttpHeaders(USERNAME, PASSWORD);
+		TapdClientContext ctx = context;
+		return getBasicHttpHeaders(ctx.getAccount(), ctx.getPassword());
+	}
+
+	/**
+	 * 获取缓存Key
+	 *
+	 * @return 缓存Key
+	 */
+	public String getCacheKey() {
+		return context.getCacheKey();
 	}
 
 	/**
@@ -0,0 +1,55 @@
+package io.metersphere.plugin.tapd.client;
+
+import io.metersphere.plugin.sdk.util.MSPluginException;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Objects;
+
+/**
+ * TAPD客户端上下文(认证信息)
+ * 不可变, 切换用户配置时整体替换, 保证同一请求内使用的是同一组认证信息
+ */
+@Getter
+public final class TapdClientContext {
+
+	/**
+	 * API账号
+	 */
+	private final String account;
+
+	/**
+	 * API口令
+	 */
+	private final String password;
+
+	/**
+	 * 缓存Key
+	 */
+	private final String cacheKey;
+
+	public TapdClientContext(String account, String password) {
+		this.account = account;
+		this.password = password;
+		// Key中不出现明文口令, 以账号及口令的SHA-256摘要区分认证信息; 口令变更后不会复用旧的缓存
+		this.cacheKey = account + "|" + sha256Hex(account, password);
+	}
+
+	/**
+	 * 计算账号及口令的SHA-256摘要, 以NUL分隔, 避免拼接后出现歧义; null按空字符串处理
+	 */
+	private static String sha256Hex(String account, String password) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update(Objects.toString(account, "").getBytes(StandardCharsets.UTF_8));
+			digest.update((byte) 0);
+			digest.update(Objects.toString(password, "").getBytes(StandardCharsets.UTF_8));
+			return HexFormat.of().formatHex(digest.digest());
+		} catch (NoSuchAlgorithmException e) {
+			throw new MSPluginException(e);
+		}
+	}
+}
@@ -0,0 +1,173 @@
+package io.metersphere.plugin.tapd.client;
+
+import io.metersphere.plugin.sdk.util.MSPluginException;
+import io.metersphere.plugin.sdk.util.PluginLogUtils;
+import io.metersphere.plugin.tapd.constants.TapdPluginProperties;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TAPD请求限流(令牌桶)
+ * 1. 按API账号维度限流, 令牌按速率补充, 桶容量即允许的突发请求数
+ * 2. 桶内保留一部分令牌给交互请求, 批量请求(同步缺陷、下载图片等)不能使用保留的令牌
+ * 3. TAPD返回429时暂停发放令牌(优先使用Retry-After), 并将速率减半; 之后每次请求成功逐步恢复至配置的速率
+ */
+public class TapdRateLimiter {
+
+	private static final Map<String, TapdRateLimiter> LIMITERS = new ConcurrentHashMap<>();
+
+	/**
+	 * 速率下限为配置速率的比例
+	 */
+	private static final double MIN_RATE_RATIO = 0.1;
+
+	/**
+	 * 请求优先级
+	 */
+	public enum Priority {
+		/**
+		 * 交互请求, 可使用全部令牌
+		 */
+		INTERACTIVE,
+		/**
+		 * 批量请求, 不能使用为交互请求保留的令牌
+		 */
+		BULK
+	}
+
+	private final String account;
+	private final double maxPermitsPerSecond;
+	private final double capacity;
+	private final double interactiveReserve;
+
+	/**
+	 * 以下状态访问需加锁
+	 */
+	private double permitsPerSecond;
+	private double tokens;
+	private long refillTime;
+	private long blockedUntil;
+
+	private final AtomicLong throttledCount = new AtomicLong();
+	private final AtomicLong interactiveThrottledNanos = new AtomicLong();
+	private final AtomicLong bulkThrottledNanos = new AtomicLong();
+	private final AtomicLong tooManyRequestsCount = new AtomicLong();
+
+	private TapdRateLimiter(String account, double permitsPerSecond, int burst, int interactiveReserve) {
+		this.account = account;
+		this.maxPermitsPerSecond = permitsPerSecond;
+		this.permitsPerSecond = permitsPerSecond;
+		this.capacity = Math.max(1, burst);
+		this.interactiveReserve = Math.min(Math.max(0, interactiveReserve), this.capacity - 1);
+		this.tokens = this.capacity;
+		this.refillTime = System.nanoTime();
+	}
+
+	/**
+	 * 获取账号对应的限流器
+	 *
+	 * @param account API账号
+	 * @return 限流器
+	 */
+	public static TapdRateLimiter getInstance(String account) {
+		return LIMITERS.computeIfAbsent(String.valueOf(account), key -> new TapdRateLimiter(key, TapdPluginProperties.RATE_LIMIT_PERMITS_PER_SECOND,
+				TapdPluginProperties.RATE_LIMIT_BURST, TapdPluginProperties.RATE_LIMIT_INTERACTIVE_RESERVE));
+	}
+
+	/**
+	 * 获取一个令牌, 没有可用令牌时等待, 超过最大等待时间后抛出异常
+	 *
+	 * @param priority 优先级
+	 */
+	public void acquire(Priority priority) {
+		if (!TapdPluginProperties.RATE_LIMIT_ENABLED || maxPermitsPerSecond <= 0) {
+			return;
+		}
+		long start = System.nanoTime();
+		long deadline = start + TimeUnit.SECONDS.toNanos(TapdPluginProperties.RATE_LIMIT_MAX_WAIT_SECONDS);
+		double required = priority == Priority.BULK ? interactiveReserve + 1 : 1;
+		try {
+			while (true) {
+				long waitNanos;
+				synchronized (this) {
+					long now = System.nanoTime();
+					refill(now);
+					if (now >= blockedUntil && tokens >= required) {
+						tokens -= 1;
+						break;
+					}
+					waitNanos = Math.max(blockedUntil - now, (long) ((required - tokens) / permitsPerSecond * TimeUnit.SECONDS.toNanos(1)));
+				}
+				if (System.nanoTime() + waitNanos > deadline) {
+					throw new MSPluginException("TAPD请求过于频繁, 请稍后重试");
+				}
+				TimeUnit.NANOSECONDS.sleep(Math.max(waitNanos, TimeUnit.MILLISECONDS.toNanos(1)));
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MSPluginException(e);
+		} finally {
+			recordThrottled(priority, System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * 请求成功, 逐步恢复速率
+	 */
+	public synchronized void onSuccess() {
+		if (permitsPerSecond < maxPermitsPerSecond) {
+			refill(System.nanoTime());
+			permitsPerSecond = Math.min(maxPermitsPerSecond, permitsPerSecond + maxPermitsPerSecond * 0.05);
+		}
+	}
+
+	/**
+	 * TAPD返回429, 暂停发放令牌并降低速率
+	 *
+	 * @param retryAfterMillis Retry-After指定的等待时间(毫秒), 小于等于0时按当前速率等待
+	 */
+	public synchronized void onTooManyRequests(long retryAfterMillis) {
+		tooManyRequestsCount.incrementAndGet();
+		long now = System.nanoTime();
+		refill(now);
+		permitsPerSecond = Math.max(maxPermitsPerSecond * MIN_RATE_RATIO, permitsPerSecond / 2);
+		tokens = 0;
+		long pauseNanos = retryAfterMillis > 0 ? TimeUnit.MILLISECONDS.toNanos(retryAfterMillis) : (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+		blockedUntil = Math.max(blockedUntil, now + pauseNanos);
+		refillTime = Math.max(refillTime, blockedUntil);
+		PluginLogUtils.info("tapd rate limited, pause " + TimeUnit.NANOSECONDS.toMillis(pauseNanos) + "ms, " + getStats());
+	}
+
+	public String getStats() {
+		double rate;
+		synchronized (this) {
+			rate = permitsPerSecond;
+		}
+		return "tapd rate limiter [" + account + "] rate: " + String.format("%.2f", rate) + "/s, throttled: " + throttledCount.get()
+				+ ", interactive throttled: " + TimeUnit.NANOSECONDS.toMillis(interactiveThrottledNanos.get())
+				+ "ms, bulk throttled: " + TimeUnit.NANOSECONDS.toMillis(bulkThrottledNanos.get()) + "ms, 429: " + tooManyRequestsCount.get();
+	}
+
+	private void refill(long now) {
+		if (now > refillTime) {
+			tokens = Math.min(capacity, tokens + (now - refillTime) * permitsPerSecond / TimeUnit.SECONDS.toNanos(1));
+			refillTime = now;
+		}
+	}
+
+	private void recordThrottled(Priority priority, long throttledNanos) {
+		// 忽略无需等待时的耗时
+		if (throttledNanos < TimeUnit.MILLISECONDS.toNanos(1)) {
+			return;
+		}
+		throttledCount.incrementAndGet();
+		if (priority == Priority.BULK) {
+			bulkThrottledNanos.addAndGet(throttledNanos);
+		} else {
+			interactiveThrottledNanos.addAndGet(throttledNanos);
+		}
+	}
+}
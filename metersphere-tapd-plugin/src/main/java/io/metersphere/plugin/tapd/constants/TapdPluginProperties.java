@@ -0,0 +1,160 @@
+package io.metersphere.plugin.tapd.constants;
+
+/**
+ * TAPD插件运行参数
+ * 默认值可通过JVM系统属性覆盖, 例如: -Dmetersphere.tapd.sync.prefetch-pages=2
+ */
+public class TapdPluginProperties {
+
+	private static final String PREFIX = "metersphere.tapd.";
+
+	/**
+	 * 全量同步缺陷时预取的页数, 0为顺序查询
+	 */
+	public static final int SYNC_PREFETCH_PAGES = Integer.getInteger(PREFIX + "sync.prefetch-pages", 1);
+
+	/**
+	 * 同步缺陷时按ID批量查询的每批数量, TAPD单次查询最多返回200条
+	 */
+	public static final int SYNC_BUG_ID_CHUNK_SIZE = Math.max(1, Math.min(Integer.getInteger(PREFIX + "sync.id-chunk-size", 100), 200));
+
+	/**
+	 * 需求列表缓存过期时间(秒)
+	 */
+	public static final long DEMAND_CACHE_TTL_SECONDS = Long.getLong(PREFIX + "demand-cache.ttl-seconds", 300L);
+
+	/**
+	 * 需求列表缓存过期后仍可返回旧数据(同时后台刷新)的最长时间(秒)
+	 */
+	public static final long DEMAND_CACHE_MAX_STALE_SECONDS = Long.getLong(PREFIX + "demand-cache.max-stale-seconds", 3600L);
+
+	/**
+	 * 需求列表缓存最多缓存的项目数
+	 */
+	public static final int DEMAND_CACHE_MAX_ENTRIES = Integer.getInteger(PREFIX + "demand-cache.max-entries", 200);
+
+	/**
+	 * 需求列表缓存最大估算内存(字节)
+	 */
+	public static final long DEMAND_CACHE_MAX_BYTES = Long.getLong(PREFIX + "demand-cache.max-bytes", 64L * 1024 * 1024);
+
+	/**
+	 * 是否开启增量同步, 开启后全量同步只查询上一次成功同步之后修改的缺陷(进程重启后首次同步仍为全量)
+	 */
+	public static final boolean SYNC_DELTA_ENABLED = Boolean.getBoolean(PREFIX + "sync.delta-enabled");
+
+	/**
+	 * 增量同步查询时间向前重叠的秒数
+	 */
+	public static final long SYNC_DELTA_OVERLAP_SECONDS = Long.getLong(PREFIX + "sync.delta-overlap-seconds", 300L);
+
+	/**
+	 * 工作流缓存过期时间(秒)
+	 */
+	public static final long WORKFLOW_CACHE_TTL_SECONDS = Long.getLong(PREFIX + "workflow-cache.ttl-seconds", 600L);
+
+	/**
+	 * 工作流缓存过期后仍可返回旧数据(同时后台刷新)的最长时间(秒)
+	 */
+	public static final long WORKFLOW_CACHE_MAX_STALE_SECONDS = Long.getLong(PREFIX + "workflow-cache.max-stale-seconds", 3600L);
+
+	/**
+	 * 工作流缓存最多缓存的条目数
+	 */
+	public static final int WORKFLOW_CACHE_MAX_ENTRIES = Integer.getInteger(PREFIX + "workflow-cache.max-entries", 1000);
+
+	/**
+	 * 项目成员缓存过期时间(秒)
+	 */
+	public static final long OWNER_CACHE_TTL_SECONDS = Long.getLong(PREFIX + "owner-cache.ttl-seconds", 600L);
+
+	/**
+	 * 项目成员缓存过期后仍可返回旧数据(同时后台刷新)的最长时间(秒)
+	 */
+	public static final long OWNER_CACHE_MAX_STALE_SECONDS = Long.getLong(PREFIX + "owner-cache.max-stale-seconds", 86400L);
+
+	/**
+	 * 项目成员缓存最多缓存的项目数
+	 */
+	public static final int OWNER_CACHE_MAX_ENTRIES = Integer.getInteger(PREFIX + "owner-cache.max-entries", 500);
+
+	/**
+	 * 同步缺陷描述时并发获取图片下载地址的最大线程数, 1为顺序获取
+	 */
+	public static final int RICH_TEXT_PIC_PARALLELISM = Integer.getInteger(PREFIX + "rich-text.pic-parallelism", 4);
+
+	/**
+	 * 是否先将附件下载至本地临时文件再交给调用方(尽快释放连接, 中断时断点续传), 关闭时直接传递网络流
+	 */
+	public static final boolean ATTACHMENT_SPOOL_ENABLED = Boolean.parseBoolean(System.getProperty(PREFIX + "attachment.spool-enabled", "true"));
+
+	/**
+	 * 附件下载中断后的最大重试次数
+	 */
+	public static final int ATTACHMENT_DOWNLOAD_MAX_RETRIES = Integer.getInteger(PREFIX + "attachment.download-max-retries", 3);
+
+	/**
+	 * HTTP连接池最大连接数
+	 */
+	public static final int HTTP_MAX_CONNECTIONS = Integer.getInteger(PREFIX + "http.max-connections", 200);
+
+	/**
+	 * HTTP连接池每个主机的最大连接数
+	 */
+	public static final int HTTP_MAX_CONNECTIONS_PER_ROUTE = Integer.getInteger(PREFIX + "http.max-connections-per-route", 50);
+
+	/**
+	 * HTTP建立连接超时时间(毫秒)
+	 */
+	public static final long HTTP_CONNECT_TIMEOUT_MILLIS = Long.getLong(PREFIX + "http.connect-timeout-millis", 10000L);
+
+	/**
+	 * HTTP读取超时时间(毫秒), 两次读取数据之间的最大间隔
+	 */
+	public static final long HTTP_READ_TIMEOUT_MILLIS = Long.getLong(PREFIX + "http.read-timeout-millis", 60000L);
+
+	/**
+	 * 从HTTP连接池获取连接的超时时间(毫秒)
+	 */
+	public static final long HTTP_CONNECTION_REQUEST_TIMEOUT_MILLIS = Long.getLong(PREFIX + "http.connection-request-timeout-millis", 30000L);
+
+	/**
+	 * HTTP连接空闲超过该时间(秒)后关闭
+	 */
+	public static final long HTTP_IDLE_EVICT_SECONDS = Long.getLong(PREFIX + "http.idle-evict-seconds", 60L);
+
+	/**
+	 * DNS解析结果缓存时间(秒)
+	 */
+	public static final long HTTP_DNS_CACHE_SECONDS = Long.getLong(PREFIX + "http.dns-cache-seconds", 60L);
+
+	/**
+	 * 是否按API账号限制TAPD请求频率
+	 */
+	public static final boolean RATE_LIMIT_ENABLED = Boolean.parseBoolean(System.getProperty(PREFIX + "rate-limit.enabled", "true"));
+
+	/**
+	 * 每个API账号每秒允许的请求数, 遇到429时自动降低, 之后逐步恢复
+	 */
+	public static final int RATE_LIMIT_PERMITS_PER_SECOND = Integer.getInteger(PREFIX + "rate-limit.permits-per-second", 10);
+
+	/**
+	 * 允许的突发请求数(令牌桶容量)
+	 */
+	public static final int RATE_LIMIT_BURST = Integer.getInteger(PREFIX + "rate-limit.burst", 20);
+
+	/**
+	 * 为交互请求(表单选项、创建缺陷等)保留的令牌数, 批量同步请求不能使用
+	 */
+	public static final int RATE_LIMIT_INTERACTIVE_RESERVE = Integer.getInteger(PREFIX + "rate-limit.interactive-reserve", 5);
+
+	/**
+	 * 等待令牌的最长时间(秒), 超过后请求失败
+	 */
+	public static final long RATE_LIMIT_MAX_WAIT_SECONDS = Long.getLong(PREFIX + "rate-limit.max-wait-seconds", 120L);
+
+	/**
+	 * TAPD返回429后的最大重试次数
+	 */
+	public static final int RATE_LIMIT_MAX_RETRIES = Integer.getInteger(PREFIX + "rate-limit.max-retries", 5);
+}
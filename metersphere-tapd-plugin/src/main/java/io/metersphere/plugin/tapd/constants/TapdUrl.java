@@ -2,6 +2,11 @@ package io.metersphere.plugin.tapd.constants;
 
 public class TapdUrl {
 
+	/**
+	 * 列表接口单页最多返回的数量
+	 */
+	public static final int MAX_LIMIT = 200;
+
 	public static final String AUTH = "/quickstart/testauth";
 
 	public static final String GET_PROJECT_INFO = "/workspaces/get_workspace_info?workspace_id={1}";
@@ -12,6 +17,11 @@ public class TapdUrl {
 
 	public static final String GET_WORKFLOW_STATUS_MAP = "/workflows/status_map?system={1}&workspace_id={2}";
 
+	/**
+	 * 工作流接口的需求类别参数, 拼接在工作流接口之后
+	 */
+	public static final String WORKITEM_TYPE_PARAM = "&workitem_type_id={3}";
+
 	public static final String GET_PROJECT_USERS = "/workspaces/users?workspace_id={1}";
 
 	public static final String GET_PROJECT_STORY = "/stories?workspace_id={1}&page={2}&limit={3}";
@@ -20,5 +30,9 @@ public class TapdUrl {
 
 	public static final String LIST_BUG = "/bugs?workspace_id={1}&page={2}&limit={3}";
 
+	public static final String LIST_BUG_BY_IDS = "/bugs?workspace_id={1}&id={2}&limit={3}";
+
+	public static final String LIST_BUG_MODIFIED = "/bugs?workspace_id={1}&modified={2}&order={3}&page={4}&limit={5}";
+
 	public static final String GET_DOWNLOAD_URL = "/files/get_image?workspace_id={1}&image_path={2}";
 }
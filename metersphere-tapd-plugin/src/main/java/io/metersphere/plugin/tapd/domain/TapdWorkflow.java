@@ -0,0 +1,98 @@
+package io.metersphere.plugin.tapd.domain;
+
+import io.metersphere.plugin.platform.dto.SelectOption;
+import lombok.Getter;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.*;
+
+/**
+ * TAPD工作流元数据, 加载后只读
+ * 包含状态字典及状态流转图(当前状态 => 可流转的状态)
+ */
+@Getter
+public final class TapdWorkflow {
+
+	/**
+	 * 起始状态
+	 */
+	private final String firstStatus;
+
+	/**
+	 * 状态字典, 状态Key => 状态名称
+	 */
+	private final Map<String, String> statusDict;
+
+	/**
+	 * 流转图, 当前状态 => 可流转的状态(按流转细则顺序)
+	 */
+	private final Map<String, List<String>> transitions;
+
+	/**
+	 * @param firstStatus      起始状态
+	 * @param statusDict       状态字典
+	 * @param transitionItems  流转细则
+	 */
+	public TapdWorkflow(String firstStatus, Map<String, String> statusDict, List<TapdTransitionStatusItem> transitionItems) {
+		this.firstStatus = firstStatus;
+		this.statusDict = statusDict == null ? Map.of() : Map.copyOf(statusDict);
+		Map<String, Set<String>> graph = new LinkedHashMap<>();
+		if (transitionItems != null) {
+			transitionItems.forEach(item -> graph.computeIfAbsent(item.getStepPrevious(), key -> new LinkedHashSet<>()).add(item.getStepNext()));
+		}
+		Map<String, List<String>> transitionMap = new LinkedHashMap<>(graph.size() * 2);
+		graph.forEach((previous, nexts) -> transitionMap.put(previous, List.copyOf(nexts)));
+		this.transitions = Collections.unmodifiableMap(transitionMap);
+	}
+
+	/**
+	 * 获取起始状态选项
+	 *
+	 * @return 状态选项, 无起始状态时返回空
+	 */
+	public SelectOption getFirstStepOption() {
+		return StringUtils.isBlank(firstStatus) ? null : toOption(firstStatus);
+	}
+
+	/**
+	 * 获取可流转的状态选项
+	 *
+	 * @param previousStatus 当前状态, 为空时返回所有存在流转的状态
+	 * @return 状态选项
+	 */
+	public List<SelectOption> getTransitionOptions(String previousStatus) {
+		Collection<String> statusKeys;
+		if (StringUtils.isNotBlank(previousStatus)) {
+			statusKeys = transitions.getOrDefault(previousStatus, List.of());
+		} else {
+			statusKeys = transitions.keySet();
+		}
+		List<SelectOption> options = new ArrayList<>(statusKeys.size());
+		statusKeys.forEach(statusKey -> options.add(toOption(statusKey)));
+		return options;
+	}
+
+	/**
+	 * 估算占用的内存
+	 *
+	 * @return 字节数
+	 */
+	public long estimateBytes() {
+		long weight = 256;
+		for (Map.Entry<String, String> entry : statusDict.entrySet()) {
+			weight += 96 + 2L * (StringUtils.length(entry.getKey()) + StringUtils.length(entry.getValue()));
+		}
+		for (List<String> nexts : transitions.values()) {
+			weight += 96 + 48L * nexts.size();
+		}
+		return weight;
+	}
+
+	private SelectOption toOption(String statusKey) {
+		SelectOption option = new SelectOption();
+		String statusName = statusDict.get(statusKey);
+		option.setText(statusName == null ? statusKey : statusName);
+		option.setValue(statusKey);
+		return option;
+	}
+}
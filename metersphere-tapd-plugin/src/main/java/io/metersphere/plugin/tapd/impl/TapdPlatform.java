@@ -13,6 +13,7 @@ import io.metersphere.plugin.sdk.util.MSPluginException;
 import io.metersphere.plugin.sdk.util.PluginLogUtils;
 import io.metersphere.plugin.sdk.util.PluginUtils;
 import io.metersphere.plugin.tapd.client.TapdClient;
+import io.metersphere.plugin.tapd.constants.TapdPluginProperties;
 import io.metersphere.plugin.tapd.constants.TapdSystemType;
 import io.metersphere.plugin.tapd.domain.TapdIntegrationConfig;
 import io.metersphere.plugin.tapd.domain.TapdProject;
@@ -20,6 +21,11 @@ import io.metersphere.plugin.tapd.domain.TapdProjectConfig;
 import io.metersphere.plugin.tapd.domain.TapdUserPlatformInfo;
 import io.metersphere.plugin.tapd.domain.response.TapdBugResponse;
 import io.metersphere.plugin.tapd.domain.response.TapdStoryResponse;
+import io.metersphere.plugin.tapd.utils.BugSyncWatermark;
+import io.metersphere.plugin.tapd.utils.ConcurrentTaskUtils;
+import io.metersphere.plugin.tapd.utils.DemandSearchIndex;
+import io.metersphere.plugin.tapd.utils.PagePrefetchPipeline;
+import io.metersphere.plugin.tapd.utils.TtlCache;
 import org.apache.commons.lang3.SerializationUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.pf4j.Extension;
@@ -32,6 +38,7 @@ import java.lang.reflect.InvocationTargetException;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -46,6 +53,12 @@ public class TapdPlatform extends AbstractPlatform {
 
 	protected static final String TAPD_RICH_TEXT_PIC_SRC_PREFIX = "/tfl";
 
+	/**
+	 * 项目需求缓存, 缓存的需求为只读对象
+	 */
+	private static final TtlCache<DemandSnapshot> DEMAND_CACHE = new TtlCache<>("tapd demand cache", TapdPluginProperties.DEMAND_CACHE_TTL_SECONDS,
+			TapdPluginProperties.DEMAND_CACHE_MAX_STALE_SECONDS, TapdPluginProperties.DEMAND_CACHE_MAX_ENTRIES, TapdPluginProperties.DEMAND_CACHE_MAX_BYTES, DemandSnapshot::estimateBytes);
+
 	protected SimpleDateFormat sdfDateTime = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
 
 	public TapdPlatform(PlatformRequest request) {
@@ -93,6 +106,10 @@ public class TapdPlatform extends AbstractPlatform {
 			if (project == null || StringUtils.isBlank(project.getId())) {
 				throw new MSPluginException("项目不存在");
 			}
+			// 项目配置变更后重新加载工作流
+			tapdClient.invalidateWorkflow(TapdSystemType.BUG, projectConfig.getTapdKey());
+			// 预加载项目成员, 打开缺陷表单时无需等待
+			tapdClient.refreshProjectUsers(projectConfig.getTapdKey());
 		} catch (Exception e) {
 			throw new MSPluginException(e.getMessage());
 		}
@@ -161,7 +178,10 @@ public class TapdPlatform extends AbstractPlatform {
 			SelectOption firstStepWorkFlow = tapdClient.getFirstStepWorkFlow(TapdSystemType.BUG, config.getTapdKey(), null);
 			statusOptions.add(firstStepWorkFlow);
 		} else {
-			statusOptions.addAll(tapdClient.getWorkFlowTransition(TapdSystemType.BUG, config.getTapdKey(), null, previousStatus));
+			List<SelectOption> transitions = tapdClient.getWorkFlowTransition(TapdSystemType.BUG, config.getTapdKey(), null, previousStatus);
+			if (transitions != null) {
+				statusOptions.addAll(transitions);
+			}
 		}
 		return statusOptions;
 	}
@@ -174,7 +194,10 @@ public class TapdPlatform extends AbstractPlatform {
 	 */
 	@Override
 	public PluginPager<PlatformDemandDTO> pageDemand(DemandPageRequest request) {
-		List<PlatformDemandDTO.Demand> demands = queryDemandList(request, null);
+		TapdProjectConfig config = validateConfig(request.getProjectConfig());
+		// 每页都基于同一份需求缓存, 保证翻页时总数、顺序及层级一致, 不会重复或遗漏需求
+		DemandSnapshot snapshot = DEMAND_CACHE.get(getDemandCacheKey(config), getDemandLoader(config));
+		List<PlatformDemandDTO.Demand> demands = queryDemandList(request, null, snapshot);
 		int total = demands.size();
 		if (request.isSelectAll()) {
 			// no pager
@@ -202,7 +225,9 @@ public class TapdPlatform extends AbstractPlatform {
 	public PlatformDemandDTO getDemands(DemandRelateQueryRequest request) {
 		DemandPageRequest requestParam = new DemandPageRequest();
 		requestParam.setProjectConfig(request.getProjectConfig());
-		List<PlatformDemandDTO.Demand> demands = queryDemandList(requestParam, request.getRelateDemandIds());
+		TapdProjectConfig config = validateConfig(request.getProjectConfig());
+		DemandSnapshot snapshot = DEMAND_CACHE.get(getDemandCacheKey(config), getDemandLoader(config));
+		List<PlatformDemandDTO.Demand> demands = queryDemandList(requestParam, request.getRelateDemandIds(), snapshot);
 		// set demand response
 		PlatformDemandDTO demandRelatePageData = new PlatformDemandDTO();
 		demandRelatePageData.setList(demands);
@@ -227,7 +252,7 @@ public class TapdPlatform extends AbstractPlatform {
 		// set param
 		MultiValueMap<String, Object> editParam = buildUpdateParam(request, platformBug);
 		editParam.add("status", statusField.getValue());
-		TapdBugResponse tapdBug = tapdClient.editBug(editParam, config.getTapdKey());
+		TapdBugResponse tapdBug = editBug(editParam, config.getTapdKey());
 		if (tapdBug != null && StringUtils.isNotBlank(tapdBug.getId())) {
 			platformBug.setPlatformBugKey(tapdBug.getId());
 			platformBug.setPlatformStatus(statusField.getValue().toString());
@@ -256,7 +281,7 @@ public class TapdPlatform extends AbstractPlatform {
 		MultiValueMap<String, Object> editParam = buildUpdateParam(request, platformBug);
 		editParam.add("status", statusField.getValue());
 		editParam.add("id", request.getPlatformBugId());
-		TapdBugResponse tapdBug = tapdClient.editBug(editParam, config.getTapdKey());
+		TapdBugResponse tapdBug = editBug(editParam, config.getTapdKey());
 		if (tapdBug != null && StringUtils.isNotBlank(tapdBug.getId())) {
 			platformBug.setPlatformBugKey(tapdBug.getId());
 			platformBug.setPlatformStatus(statusField.getValue().toString());
@@ -298,35 +323,26 @@ public class TapdPlatform extends AbstractPlatform {
 		// prepare param
 		SyncBugResult syncResult = new SyncBugResult();
 		List<PlatformBugDTO> bugs = request.getBugs();
-		List<String> syncBugIds = bugs.stream().map(PlatformBugDTO::getPlatformBugId).collect(Collectors.toList());
-
-		// query bug list by page
-		int page = 1, limit = 200, querySize;
-		List<Map> totalQueryBugs = new ArrayList<>();
-		do {
-			List<Map> queryPageBugs = tapdClient.getBugForPage(config.getTapdKey(), page, limit);
-			querySize = queryPageBugs.size();
-			if (querySize > 0) {
-				totalQueryBugs.addAll(queryPageBugs);
-			}
-			page++;
-		} while (querySize >= limit);
 
-		Map<String, Map> queryBugMap = new HashMap<>();
-		totalQueryBugs.forEach(queryBug -> {
-			queryBugMap.put(queryBug.get("id").toString(), queryBug);
-		});
-		// Handle bug that require sync
-		bugs.forEach(bug -> {
-			Map findBug = queryBugMap.get(bug.getPlatformBugId());
-			if (findBug != null) {
-				syncTapdFieldToMsBug(bug, findBug, false, config.getTapdKey());
-				syncResult.getUpdateBug().add(bug);
-			} else {
-				// not found, delete it
-				syncResult.getDeleteBugIds().add(bug.getId());
-			}
-		});
+		// query bug by id in chunks, only the bugs need sync
+		int chunkSize = TapdPluginProperties.SYNC_BUG_ID_CHUNK_SIZE;
+		for (int start = 0; start < bugs.size(); start += chunkSize) {
+			List<PlatformBugDTO> chunkBugs = bugs.subList(start, Math.min(start + chunkSize, bugs.size()));
+			List<String> chunkBugIds = chunkBugs.stream().map(PlatformBugDTO::getPlatformBugId).distinct().collect(Collectors.toList());
+			Map<String, Map> queryBugMap = new HashMap<>(chunkBugIds.size());
+			tapdClient.getBugByIds(config.getTapdKey(), chunkBugIds).forEach(queryBug -> queryBugMap.put(queryBug.get("id").toString(), queryBug));
+			// Handle bug that require sync
+			chunkBugs.forEach(bug -> {
+				Map findBug = queryBugMap.get(bug.getPlatformBugId());
+				if (findBug != null) {
+					syncTapdFieldToMsBug(bug, findBug, false, config.getTapdKey());
+					syncResult.getUpdateBug().add(bug);
+				} else {
+					// not found, delete it
+					syncResult.getDeleteBugIds().add(bug.getId());
+				}
+			});
+		}
 		return syncResult;
 	}
 
@@ -335,18 +351,31 @@ public class TapdPlatform extends AbstractPlatform {
 		// validate config
 		TapdProjectConfig config = validateConfig(request.getProjectConfig());
 
-		// prepare page param
-		int page = 1, limit = 200, querySize;
+		// delta sync: only query bugs modified since last successful sync
+		BugSyncWatermark watermark = new BugSyncWatermark(tapdClient.getCacheKey() + "|" + config.getTapdKey());
+		if (watermark.isDelta()) {
+			PluginLogUtils.info("tapd delta sync bugs modified since " + watermark.getSince());
+		}
+
+		// prepare page param, query next page while current page is being processed
+		int limit = 200;
+		PagePrefetchPipeline<List<Map>> pipeline = new PagePrefetchPipeline<>("tapd sync all bugs", TapdPluginProperties.SYNC_PREFETCH_PAGES,
+				page -> watermark.isDelta() ? tapdClient.getModifiedBugForPage(config.getTapdKey(), page, limit, watermark.getSince())
+						: tapdClient.getBugForPage(config.getTapdKey(), page, limit),
+				// ordered by modified desc, stop at older records
+				(page, tapdBugs) -> tapdBugs.size() >= limit && !(watermark.isDelta() && watermark.isBeforeSince(getModified(tapdBugs.getLast()))));
 		try {
-			do {
+			pipeline.run(1, tapdBugs -> {
 				// prepare post process func param
 				List<PlatformBugDTO> needSyncBugs = new ArrayList<>();
 				SyncBugResult syncBugResult = new SyncBugResult();
 
-				// query tapd bug by page
-				List<Map> tapdBugs = tapdClient.getBugForPage(config.getTapdKey(), page, limit);
-				querySize = tapdBugs.size();
+				if (watermark.isDelta()) {
+					tapdBugs = tapdBugs.stream().filter(bugMap -> !watermark.isBeforeSince(getModified(bugMap))).collect(Collectors.toList());
+				}
 				tapdBugs = filterBySyncCondition(tapdBugs, request);
+				// 水位线只记录实际同步的缺陷
+				tapdBugs.forEach(bugMap -> watermark.observe(getModified(bugMap)));
 				if (!CollectionUtils.isEmpty(tapdBugs)) {
 					for (Map bugMap : tapdBugs) {
 						// transfer tapd bug field to ms
@@ -364,16 +393,28 @@ public class TapdPlatform extends AbstractPlatform {
 				syncPostParamRequest.setNeedSyncBugs(needSyncBugs);
 				syncPostParamRequest.setAttachmentMap(syncBugResult.getAttachmentMap());
 				request.getSyncPostProcessFunc().accept(syncPostParamRequest);
-
-				// next page
-				page++;
-			} while (querySize >= limit);
+			});
+			// 按创建时间过滤的同步跳过了部分缺陷, 不更新水位线
+			if (request.getPre() == null && request.getCreateTime() == null) {
+				watermark.commit();
+			}
 		} catch (Exception e) {
 			PluginLogUtils.error(e);
 			throw new MSPluginException(e);
 		}
 	}
 
+	/**
+	 * 获取缺陷修改时间
+	 *
+	 * @param tapdBug 缺陷
+	 * @return 修改时间
+	 */
+	private String getModified(Map tapdBug) {
+		Object modified = tapdBug.get("modified");
+		return modified == null ? null : modified.toString();
+	}
+
 	/**
 	 * 获取附件下载流
 	 *
@@ -552,63 +593,146 @@ public class TapdPlatform extends AbstractPlatform {
 		}
 	}
 
+	/**
+	 * 需求缓存Key {账号, 项目}
+	 *
+	 * @param config 项目配置
+	 * @return 缓存Key
+	 */
+	private String getDemandCacheKey(TapdProjectConfig config) {
+		return tapdClient.getCacheKey() + "|" + config.getTapdKey();
+	}
+
+	/**
+	 * 需求缓存加载方法, 查询项目全部需求
+	 *
+	 * @param config 项目配置
+	 * @return 加载方法
+	 */
+	private Supplier<DemandSnapshot> getDemandLoader(TapdProjectConfig config) {
+		return () -> new DemandSnapshot(tapdClient.getProjectStorys(config.getTapdKey()));
+	}
+
+	/**
+	 * 获取需求树中最高的搜索排名
+	 *
+	 * @param demand 需求
+	 * @param result 搜索结果
+	 * @return 排名
+	 */
+	private int getBestRank(PlatformDemandDTO.Demand demand, DemandSearchIndex.SearchResult result) {
+		int rank = result.getRank(demand.getDemandId());
+		if (demand.getChildren() != null) {
+			for (PlatformDemandDTO.Demand child : demand.getChildren()) {
+				rank = Math.min(rank, getBestRank(child, result));
+			}
+		}
+		return rank;
+	}
+
+	/**
+	 * 估算需求缓存占用的内存
+	 *
+	 * @param storys 需求集合
+	 * @return 字节数
+	 */
+	private static long weighStorys(List<TapdStoryResponse> storys) {
+		long weight = 0;
+		for (TapdStoryResponse story : storys) {
+			weight += 256 + 2L * StringUtils.length(story.getName()) + 2L * StringUtils.length(story.getChildren_id());
+			if (story.getChildren() != null) {
+				weight += weighStorys(story.getChildren());
+			}
+		}
+		return weight;
+	}
+
+	/**
+	 * 构建需求(递归处理子需求), 需求本身或其子需求满足搜索条件时才展示
+	 *
+	 * @param story   需求
+	 * @param parent  父需求, 顶层需求为空
+	 * @param request 需求分页参数
+	 * @param tapdKey 项目Key
+	 * @param result  搜索结果, 无搜索条件时为空
+	 * @return 需求, 不展示时返回空
+	 */
+	private PlatformDemandDTO.Demand buildFilteredDemand(TapdStoryResponse story, PlatformDemandDTO.Demand parent, DemandPageRequest request, String tapdKey,
+														 DemandSearchIndex.SearchResult result) {
+		PlatformDemandDTO.Demand demand = new PlatformDemandDTO.Demand();
+		demand.setDemandId(story.getId());
+		demand.setDemandName(story.getName());
+		demand.setDemandUrl(tapdClient.getBaseUrl() + "/" + tapdKey + "/prong/stories/view/" + story.getId());
+		// 顶层需求ID模糊匹配, 子需求ID精确匹配
+		String excludeCheckId = parent == null ? demand.getDemandId() : parent.getDemandId();
+		boolean isDemandShow = result == null || result.isTitleMatched(demand.getDemandId()) || result.isIdMatched(demand.getDemandId(), parent == null) &&
+				(CollectionUtils.isEmpty(request.getExcludeIds()) || !request.getExcludeIds().contains(excludeCheckId));
+		if (parent != null) {
+			demand.setParent(parent.getDemandId());
+		}
+		if (!CollectionUtils.isEmpty(story.getChildren())) {
+			// handle children demand list
+			List<PlatformDemandDTO.Demand> childrenDemands = new ArrayList<>();
+			story.getChildren().forEach(childStory -> {
+				PlatformDemandDTO.Demand childDemand = buildFilteredDemand(childStory, demand, request, tapdKey, result);
+				if (childDemand != null) {
+					// When child story meet the condition, show it
+					childrenDemands.add(childDemand);
+				}
+			});
+			demand.setChildren(childrenDemands);
+		}
+		// When story meet the condition or it's child story meet the condition, show the story
+		return isDemandShow || !CollectionUtils.isEmpty(demand.getChildren()) ? demand : null;
+	}
+
 	/**
 	 * 查询需求列表
 	 *
 	 * @param request   需求请求参数
 	 * @param filterIds 过滤的需求ID
+	 * @param snapshot  需求缓存
 	 * @return 需求列表
 	 */
-	private List<PlatformDemandDTO.Demand> queryDemandList(DemandPageRequest request, List<String> filterIds) {
+	private List<PlatformDemandDTO.Demand> queryDemandList(DemandPageRequest request, List<String> filterIds, DemandSnapshot snapshot) {
 		// validate demand config
 		TapdProjectConfig config = validateConfig(request.getProjectConfig());
 
-		// query demand list no limit
-		List<TapdStoryResponse> storys = tapdClient.getProjectStorys(config.getTapdKey(), request.getStartPage(), Integer.MAX_VALUE);
 		// handle empty data
-		if (CollectionUtils.isEmpty(storys)) {
+		if (CollectionUtils.isEmpty(snapshot.storys)) {
 			return List.of();
 		}
 
+		// search by index, only build the story trees which contain matched storys
+		DemandSearchIndex.SearchResult result = StringUtils.isBlank(request.getQuery()) ? null : snapshot.index.search(request.getQuery());
+		Set<String> matchedRootIds = result == null ? null : result.getMatchedIds().stream().map(snapshot.rootIds::get).collect(Collectors.toSet());
+
 		// prepare demand list
 		List<PlatformDemandDTO.Demand> demands = new ArrayList<>();
-		storys.forEach(story -> {
-			PlatformDemandDTO.Demand demand = new PlatformDemandDTO.Demand();
-			demand.setDemandId(story.getId());
-			demand.setDemandName(story.getName());
-			demand.setDemandUrl(tapdClient.getBaseUrl() + "/" + config.getTapdKey() + "/prong/stories/view/" + story.getId());
-			boolean isParentDemandShow = StringUtils.isBlank(request.getQuery()) || StringUtils.containsIgnoreCase(demand.getDemandName(), request.getQuery()) || StringUtils.containsIgnoreCase(demand.getDemandId(), request.getQuery()) &&
-					(CollectionUtils.isEmpty(request.getExcludeIds()) || !request.getExcludeIds().contains(demand.getDemandId()));
-			if (!CollectionUtils.isEmpty(story.getChildren())) {
-				List<PlatformDemandDTO.Demand> childrenDemands = new ArrayList<>();
-				// handle children demand list
-				story.getChildren().forEach(childStory -> {
-					PlatformDemandDTO.Demand childDemand = new PlatformDemandDTO.Demand();
-					childDemand.setDemandId(childStory.getId());
-					childDemand.setDemandName(childStory.getName());
-					childDemand.setDemandUrl(tapdClient.getBaseUrl() + "/" + config.getTapdKey() + "/prong/stories/view/" + childStory.getId());
-					childDemand.setParent(demand.getDemandId());
-					boolean isChildDemandShow = StringUtils.isBlank(request.getQuery()) || StringUtils.containsIgnoreCase(childDemand.getDemandName(), request.getQuery()) || StringUtils.equalsIgnoreCase(childDemand.getDemandId(), request.getQuery()) &&
-							(CollectionUtils.isEmpty(request.getExcludeIds()) || !request.getExcludeIds().contains(demand.getDemandId()));
-					if (isChildDemandShow) {
-						// When child story meet the condition, show it
-						childrenDemands.add(childDemand);
-					}
-				});
-				demand.setChildren(childrenDemands);
+		snapshot.storys.forEach(story -> {
+			if (matchedRootIds != null && !matchedRootIds.contains(story.getId())) {
+				return;
 			}
-			if (isParentDemandShow || !CollectionUtils.isEmpty(demand.getChildren())) {
-				// When parent story meet the condition or it's child story meet the condition, show the story
+			PlatformDemandDTO.Demand demand = buildFilteredDemand(story, null, request, config.getTapdKey(), result);
+			if (demand != null) {
 				demands.add(demand);
 			}
 		});
-		// sort by demand id
-		demands.sort(Comparator.comparing(PlatformDemandDTO.Demand::getDemandId));
+		if (result == null) {
+			// sort by demand id
+			demands.sort(Comparator.comparing(PlatformDemandDTO.Demand::getDemandId));
+		} else {
+			// sort by best rank of the story tree, then demand id
+			Map<String, Integer> demandRanks = new HashMap<>(demands.size() * 2);
+			demands.forEach(demand -> demandRanks.put(demand.getDemandId(), getBestRank(demand, result)));
+			demands.sort(Comparator.comparing((PlatformDemandDTO.Demand demand) -> demandRanks.get(demand.getDemandId())).thenComparing(PlatformDemandDTO.Demand::getDemandId));
+		}
 		// filter by condition
 		List<PlatformDemandDTO.Demand> filterDemands = demands;
 		// filter by ids
 		if (!CollectionUtils.isEmpty(filterIds)) {
-			filterDemands = filterDemands.stream().filter(demand -> filterIds.contains(demand.getDemandId())).collect(Collectors.toList());
+			Set<String> filterIdSet = new HashSet<>(filterIds);
+			filterDemands = filterDemands.stream().filter(demand -> filterIdSet.contains(demand.getDemandId())).collect(Collectors.toList());
 		}
 		if (!CollectionUtils.isEmpty(request.getExcludeIds()) && request.isSelectAll()) {
 			filterDemands = filterDemands.stream().filter(demand -> !request.getExcludeIds().contains(demand.getDemandId())).collect(Collectors.toList());
@@ -697,6 +821,22 @@ public class TapdPlatform extends AbstractPlatform {
 		return config;
 	}
 
+	/**
+	 * 创建或修改缺陷, 失败时可能是工作流已变更, 使工作流缓存失效
+	 *
+	 * @param editParam  缺陷参数
+	 * @param projectKey 项目Key
+	 * @return 缺陷
+	 */
+	private TapdBugResponse editBug(MultiValueMap<String, Object> editParam, String projectKey) {
+		try {
+			return tapdClient.editBug(editParam, projectKey);
+		} catch (MSPluginException e) {
+			tapdClient.invalidateWorkflow(TapdSystemType.BUG, projectKey);
+			throw e;
+		}
+	}
+
 	/**
 	 * 过滤出自定义字段中的状态字段
 	 *
@@ -752,25 +892,137 @@ public class TapdPlatform extends AbstractPlatform {
 			return null;
 		}
 		try {
-			String[] splitStr = content.split("<img");
+			// 找出需要获取下载URL的图片标签, 并发获取临时下载URL
+			List<TapdImgTag> imgTags = findTapdImgTags(content);
+			if (imgTags.isEmpty()) {
+				msBug.setRichTextImageMap(new HashMap<>(16));
+				return content;
+			}
+			List<String> tapdUrlKeys = imgTags.stream().map(imgTag -> imgTag.src).distinct().toList();
+			List<String> picTmpDownUrls = ConcurrentTaskUtils.mapOrdered(tapdUrlKeys, TapdPluginProperties.RICH_TEXT_PIC_PARALLELISM,
+					tapdUrlKey -> tapdClient.getPicTmpDownUrl(projectKey, tapdUrlKey), (tapdUrlKey, e) -> null);
+			Map<String, String> downUrlMap = new HashMap<>(tapdUrlKeys.size() * 2);
+			for (int i = 0; i < tapdUrlKeys.size(); i++) {
+				if (StringUtils.isNotBlank(picTmpDownUrls.get(i))) {
+					downUrlMap.put(tapdUrlKeys.get(i), picTmpDownUrls.get(i));
+				}
+			}
+			// 一次遍历替换图片标签, 标签内容按原文处理
 			Map<String, String> richFileMap = new HashMap<>(16);
-			for (String imgStr : splitStr) {
-				if (imgStr.contains(TAPD_RICH_TEXT_PIC_SRC_PREFIX)) {
-					String tapdUrlKey = imgStr.substring(imgStr.indexOf("src=\"") + 5, imgStr.indexOf("\" "));
-					String picTmpDownUrl = tapdClient.getPicTmpDownUrl(projectKey, tapdUrlKey);
-					if (StringUtils.isNotBlank(picTmpDownUrl)) {
-						String replaceTmpUrl = imgStr.replaceAll("src", "psrc").replaceAll("/>", "alt=\"" + picTmpDownUrl + "\" />");
-						content = content.replaceAll(imgStr, replaceTmpUrl);
-						// 禅道富文本中的图片默认命名为*.jpg, *:唯一文件ID, 标识, 整数
-						richFileMap.put(picTmpDownUrl, UUID.randomUUID() + ".jpg");
-					}
+			StringBuilder result = new StringBuilder(content.length() + imgTags.size() * 256);
+			int position = 0;
+			for (TapdImgTag imgTag : imgTags) {
+				String picTmpDownUrl = downUrlMap.get(imgTag.src);
+				if (picTmpDownUrl == null) {
+					continue;
 				}
+				result.append(content, position, imgTag.start);
+				String tag = content.substring(imgTag.start, imgTag.end);
+				int closeIndex = tag.endsWith("/>") ? tag.length() - 2 : tag.length() - 1;
+				String tagBody = StringUtils.replace(tag.substring(0, closeIndex), "src", "psrc");
+				result.append(tagBody).append(tagBody.endsWith(" ") ? StringUtils.EMPTY : " ");
+				result.append("alt=\"").append(picTmpDownUrl).append("\" ").append(tag, closeIndex, tag.length());
+				position = imgTag.end;
+				// 禅道富文本中的图片默认命名为*.jpg, *:唯一文件ID, 标识, 整数
+				richFileMap.putIfAbsent(picTmpDownUrl, UUID.randomUUID() + ".jpg");
 			}
+			result.append(content, position, content.length());
 			msBug.setRichTextImageMap(richFileMap);
-			return content;
+			return result.toString();
 		} catch (Exception e) {
 			PluginLogUtils.error("Parse tapd bug description error: " + e.getMessage());
 		}
 		return null;
 	}
+
+	/**
+	 * 查找Tapd本地上传的图片标签
+	 *
+	 * @param content 富文本内容
+	 * @return 图片标签, 按出现顺序
+	 */
+	private List<TapdImgTag> findTapdImgTags(String content) {
+		List<TapdImgTag> imgTags = new ArrayList<>();
+		int start = content.indexOf("<img");
+		while (start >= 0) {
+			int end = content.indexOf('>', start);
+			if (end < 0) {
+				break;
+			}
+			int srcStart = content.indexOf("src=\"", start);
+			if (srcStart >= 0 && srcStart < end) {
+				int srcEnd = content.indexOf('"', srcStart + 5);
+				String src = srcEnd > 0 && srcEnd < end ? content.substring(srcStart + 5, srcEnd) : null;
+				if (src != null && src.contains(TAPD_RICH_TEXT_PIC_SRC_PREFIX)) {
+					imgTags.add(new TapdImgTag(start, end + 1, src));
+				}
+			}
+			start = content.indexOf("<img", end);
+		}
+		return imgTags;
+	}
+
+	/**
+	 * 富文本中的图片标签
+	 */
+	private static class TapdImgTag {
+
+		/**
+		 * 标签起始位置(包含)
+		 */
+		private final int start;
+
+		/**
+		 * 标签结束位置(不包含)
+		 */
+		private final int end;
+
+		/**
+		 * 图片地址
+		 */
+		private final String src;
+
+		private TapdImgTag(int start, int end, String src) {
+			this.start = start;
+			this.end = end;
+			this.src = src;
+		}
+	}
+
+	/**
+	 * 项目需求快照, 包含需求树及搜索索引, 加载后只读
+	 */
+	private static class DemandSnapshot {
+
+		/**
+		 * 顶层需求
+		 */
+		private final List<TapdStoryResponse> storys;
+
+		/**
+		 * 需求ID => 所属顶层需求ID
+		 */
+		private final Map<String, String> rootIds = new HashMap<>();
+
+		private final DemandSearchIndex index;
+
+		private DemandSnapshot(List<TapdStoryResponse> storys) {
+			this.storys = List.copyOf(storys);
+			Map<String, String> documents = new LinkedHashMap<>();
+			storys.forEach(story -> collect(story, story.getId(), documents));
+			this.index = new DemandSearchIndex(documents);
+		}
+
+		private void collect(TapdStoryResponse story, String rootId, Map<String, String> documents) {
+			rootIds.put(story.getId(), rootId);
+			documents.put(story.getId(), story.getName());
+			if (story.getChildren() != null) {
+				story.getChildren().forEach(child -> collect(child, rootId, documents));
+			}
+		}
+
+		private long estimateBytes() {
+			return weighStorys(storys) + 96L * rootIds.size() + index.estimateBytes();
+		}
+	}
 }
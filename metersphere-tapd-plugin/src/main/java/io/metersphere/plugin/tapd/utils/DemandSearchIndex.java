@@ -0,0 +1,265 @@
+package io.metersphere.plugin.tapd.utils;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 需求搜索索引
+ * 标题按字符二元组(单字查询使用单字)建立倒排索引, 适用于中文等无分词的文本; 查询时取各二元组倒排表的交集后再校验包含关系;
+ * ID支持精确查找及子串查找. 索引构建后只读, 可并发查询
+ */
+public class DemandSearchIndex {
+
+	/**
+	 * 匹配排名, 越小越靠前
+	 */
+	public static final int RANK_ID_EQUALS = 0;
+	public static final int RANK_TITLE_EQUALS = 1;
+	public static final int RANK_TITLE_PREFIX = 2;
+	public static final int RANK_TITLE_CONTAINS = 3;
+	public static final int RANK_ID_CONTAINS = 4;
+
+	private final String[] keys;
+	private final String[] ids;
+	private final String[] titles;
+	private final Map<String, Integer> idIndex;
+	private final GramIndex titleGrams;
+	private final GramIndex idGrams;
+
+	/**
+	 * @param documents 需求ID与标题
+	 */
+	public DemandSearchIndex(Map<String, String> documents) {
+		int size = documents.size();
+		this.keys = new String[size];
+		this.ids = new String[size];
+		this.titles = new String[size];
+		this.idIndex = new HashMap<>(size * 2);
+		int doc = 0;
+		for (Map.Entry<String, String> document : documents.entrySet()) {
+			keys[doc] = document.getKey();
+			ids[doc] = document.getKey().toLowerCase(Locale.ROOT);
+			titles[doc] = StringUtils.defaultString(document.getValue()).toLowerCase(Locale.ROOT);
+			idIndex.put(keys[doc], doc);
+			doc++;
+		}
+		this.titleGrams = new GramIndex(titles);
+		this.idGrams = new GramIndex(ids);
+	}
+
+	/**
+	 * 搜索需求
+	 *
+	 * @param query 关键字
+	 * @return 搜索结果
+	 */
+	public SearchResult search(String query) {
+		Map<String, Integer> ranks = new HashMap<>();
+		String keyword = query.toLowerCase(Locale.ROOT);
+		for (int doc : idGrams.search(keyword, ids)) {
+			ranks.put(keys[doc], ids[doc].equals(keyword) ? RANK_ID_EQUALS : RANK_ID_CONTAINS);
+		}
+		for (int doc : titleGrams.search(keyword, titles)) {
+			int rank = titles[doc].equals(keyword) ? RANK_TITLE_EQUALS : titles[doc].startsWith(keyword) ? RANK_TITLE_PREFIX : RANK_TITLE_CONTAINS;
+			ranks.merge(keys[doc], rank, Math::min);
+		}
+		return new SearchResult(keyword, ranks);
+	}
+
+	/**
+	 * 搜索结果
+	 */
+	public class SearchResult {
+
+		private final String keyword;
+
+		/**
+		 * 匹配的需求ID及最高排名
+		 */
+		private final Map<String, Integer> ranks;
+
+		private SearchResult(String keyword, Map<String, Integer> ranks) {
+			this.keyword = keyword;
+			this.ranks = ranks;
+		}
+
+		/**
+		 * 标题是否包含关键字
+		 *
+		 * @param id 需求ID
+		 * @return 是否匹配
+		 */
+		public boolean isTitleMatched(String id) {
+			Integer rank = ranks.get(id);
+			if (rank == null) {
+				return false;
+			}
+			if (rank != RANK_ID_EQUALS && rank != RANK_ID_CONTAINS) {
+				return true;
+			}
+			// ID排名更高时标题可能同样匹配
+			Integer doc = idIndex.get(id);
+			return titles[doc].contains(keyword);
+		}
+
+		/**
+		 * ID是否匹配
+		 *
+		 * @param id           需求ID
+		 * @param allowContain 是否支持子串匹配, 否则精确匹配
+		 * @return 是否匹配
+		 */
+		public boolean isIdMatched(String id, boolean allowContain) {
+			Integer rank = ranks.get(id);
+			return rank != null && (rank == RANK_ID_EQUALS || allowContain && (rank == RANK_ID_CONTAINS || ids[idIndex.get(id)].contains(keyword)));
+		}
+
+		/**
+		 * 匹配的需求ID
+		 *
+		 * @return 需求ID
+		 */
+		public Set<String> getMatchedIds() {
+			return ranks.keySet();
+		}
+
+		/**
+		 * 获取排名, 未匹配时排在最后
+		 *
+		 * @param id 需求ID
+		 * @return 排名
+		 */
+		public int getRank(String id) {
+			return ranks.getOrDefault(id, Integer.MAX_VALUE);
+		}
+	}
+
+	/**
+	 * 估算索引占用的内存
+	 *
+	 * @return 字节数
+	 */
+	public long estimateBytes() {
+		long bytes = 64L * ids.length;
+		for (int doc = 0; doc < ids.length; doc++) {
+			bytes += 2L * (ids[doc].length() + titles[doc].length());
+		}
+		return bytes + titleGrams.estimateBytes() + idGrams.estimateBytes();
+	}
+
+	/**
+	 * 字符二元组倒排索引, 同时保留单字倒排表用于单字查询
+	 */
+	private static class GramIndex {
+
+		private static final int[] EMPTY = new int[0];
+
+		private final Map<String, int[]> postings;
+
+		private GramIndex(String[] texts) {
+			Map<String, IntList> building = new HashMap<>();
+			for (int doc = 0; doc < texts.length; doc++) {
+				for (String gram : grams(texts[doc], true)) {
+					building.computeIfAbsent(gram, key -> new IntList()).add(doc);
+				}
+			}
+			this.postings = new HashMap<>(building.size() * 2);
+			building.forEach((gram, docs) -> postings.put(gram, docs.toArray()));
+		}
+
+		/**
+		 * 查询包含关键字的文档, 按文档顺序返回
+		 */
+		private int[] search(String keyword, String[] texts) {
+			if (keyword.length() == 1) {
+				return postings.getOrDefault(keyword, EMPTY);
+			}
+			List<int[]> lists = new ArrayList<>();
+			for (String gram : grams(keyword, false)) {
+				int[] docs = postings.get(gram);
+				if (docs == null) {
+					return EMPTY;
+				}
+				lists.add(docs);
+			}
+			// 从最短的倒排表开始求交集
+			lists.sort(Comparator.comparingInt(docs -> docs.length));
+			int[] candidates = lists.getFirst();
+			for (int i = 1; i < lists.size() && candidates.length > 0; i++) {
+				candidates = intersect(candidates, lists.get(i));
+			}
+			// 二元组全部命中不代表连续出现, 需校验
+			int count = 0;
+			int[] result = new int[candidates.length];
+			for (int doc : candidates) {
+				if (texts[doc].contains(keyword)) {
+					result[count++] = doc;
+				}
+			}
+			return Arrays.copyOf(result, count);
+		}
+
+		private long estimateBytes() {
+			long bytes = 0;
+			for (int[] docs : postings.values()) {
+				bytes += 64 + 4L * docs.length;
+			}
+			return bytes;
+		}
+
+		private static Set<String> grams(String text, boolean withUnigram) {
+			Set<String> grams = new LinkedHashSet<>();
+			for (int i = 0; i < text.length(); i++) {
+				if (withUnigram) {
+					grams.add(text.substring(i, i + 1));
+				}
+				if (i + 2 <= text.length()) {
+					grams.add(text.substring(i, i + 2));
+				}
+			}
+			return grams;
+		}
+
+		private static int[] intersect(int[] left, int[] right) {
+			int[] result = new int[Math.min(left.length, right.length)];
+			int i = 0, j = 0, count = 0;
+			while (i < left.length && j < right.length) {
+				if (left[i] == right[j]) {
+					result[count++] = left[i];
+					i++;
+					j++;
+				} else if (left[i] < right[j]) {
+					i++;
+				} else {
+					j++;
+				}
+			}
+			return Arrays.copyOf(result, count);
+		}
+	}
+
+	private static class IntList {
+		private int[] values = new int[4];
+		private int size;
+
+		private void add(int value) {
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = value;
+		}
+
+		private int[] toArray() {
+			return Arrays.copyOf(values, size);
+		}
+	}
+}
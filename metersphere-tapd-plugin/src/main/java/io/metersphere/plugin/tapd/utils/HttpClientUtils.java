@@ -0,0 +1,137 @@
+package io.metersphere.plugin.tapd.utils;
+
+import io.metersphere.plugin.sdk.util.MSPluginException;
+import io.metersphere.plugin.sdk.util.PluginLogUtils;
+import io.metersphere.plugin.tapd.constants.TapdPluginProperties;
+import org.apache.hc.client5.http.DnsResolver;
+import org.apache.hc.client5.http.SystemDefaultDnsResolver;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.ssl.NoopHostnameVerifier;
+import org.apache.hc.client5.http.ssl.SSLConnectionSocketFactoryBuilder;
+import org.apache.hc.core5.ssl.SSLContexts;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 插件共享的HTTP客户端
+ * 1. 连接池按主机复用连接(Keep-Alive), 避免每次请求重新建立TCP及TLS连接; 定期清理过期及空闲连接
+ * 2. 默认协商gzip压缩(请求已指定Accept-Encoding时不覆盖)
+ * 3. DNS解析结果缓存一段时间, 解析失败时沿用上次的结果
+ * 4. 与SDK默认客户端一致, 信任所有证书
+ */
+public class HttpClientUtils {
+
+	private static final PoolingHttpClientConnectionManager CONNECTION_MANAGER = createConnectionManager();
+
+	private static final RestTemplate REST_TEMPLATE = createRestTemplate();
+
+	/**
+	 * 获取共享的RestTemplate
+	 *
+	 * @return RestTemplate
+	 */
+	public static RestTemplate getRestTemplate() {
+		return REST_TEMPLATE;
+	}
+
+	public static String getStats() {
+		return "tapd http pool " + CONNECTION_MANAGER.getTotalStats();
+	}
+
+	private static PoolingHttpClientConnectionManager createConnectionManager() {
+		try {
+			ConnectionConfig connectionConfig = ConnectionConfig.custom()
+					.setConnectTimeout(Timeout.ofMilliseconds(TapdPluginProperties.HTTP_CONNECT_TIMEOUT_MILLIS))
+					.setSocketTimeout(Timeout.ofMilliseconds(TapdPluginProperties.HTTP_READ_TIMEOUT_MILLIS))
+					// 空闲一段时间后借出前校验连接是否可用
+					.setValidateAfterInactivity(TimeValue.ofSeconds(2))
+					.build();
+			return PoolingHttpClientConnectionManagerBuilder.create()
+					.setSSLSocketFactory(SSLConnectionSocketFactoryBuilder.create()
+							.setSslContext(SSLContexts.custom().loadTrustMaterial(null, (chain, authType) -> true).build())
+							.setHostnameVerifier(NoopHostnameVerifier.INSTANCE)
+							.build())
+					.setDnsResolver(new CachingDnsResolver(TapdPluginProperties.HTTP_DNS_CACHE_SECONDS))
+					.setMaxConnTotal(TapdPluginProperties.HTTP_MAX_CONNECTIONS)
+					.setMaxConnPerRoute(TapdPluginProperties.HTTP_MAX_CONNECTIONS_PER_ROUTE)
+					.setDefaultConnectionConfig(connectionConfig)
+					.build();
+		} catch (Exception e) {
+			throw new MSPluginException(e);
+		}
+	}
+
+	private static RestTemplate createRestTemplate() {
+		CloseableHttpClient httpClient = HttpClients.custom()
+				.setConnectionManager(CONNECTION_MANAGER)
+				.setDefaultRequestConfig(RequestConfig.custom()
+						.setConnectionRequestTimeout(Timeout.ofMilliseconds(TapdPluginProperties.HTTP_CONNECTION_REQUEST_TIMEOUT_MILLIS))
+						.build())
+				.evictExpiredConnections()
+				.evictIdleConnections(TimeValue.ofSeconds(TapdPluginProperties.HTTP_IDLE_EVICT_SECONDS))
+				.build();
+		return new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+	}
+
+	/**
+	 * 缓存解析结果的DNS解析器
+	 */
+	private static class CachingDnsResolver implements DnsResolver {
+
+		private final long ttlNanos;
+
+		private final Map<String, ResolvedAddress> addresses = new ConcurrentHashMap<>();
+
+		private CachingDnsResolver(long ttlSeconds) {
+			this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+		}
+
+		@Override
+		public InetAddress[] resolve(String host) throws UnknownHostException {
+			ResolvedAddress cached = addresses.get(host);
+			long now = System.nanoTime();
+			if (cached != null && now - cached.resolveTime < ttlNanos) {
+				return cached.addresses.clone();
+			}
+			try {
+				InetAddress[] resolved = SystemDefaultDnsResolver.INSTANCE.resolve(host);
+				addresses.put(host, new ResolvedAddress(resolved, now));
+				return resolved.clone();
+			} catch (UnknownHostException e) {
+				if (cached == null) {
+					throw e;
+				}
+				PluginLogUtils.error("resolve [" + host + "] error, use cached address: " + e.getMessage());
+				return cached.addresses.clone();
+			}
+		}
+
+		@Override
+		public String resolveCanonicalHostname(String host) throws UnknownHostException {
+			return SystemDefaultDnsResolver.INSTANCE.resolveCanonicalHostname(host);
+		}
+	}
+
+	private static class ResolvedAddress {
+		private final InetAddress[] addresses;
+		private final long resolveTime;
+
+		private ResolvedAddress(InetAddress[] addresses, long resolveTime) {
+			this.addresses = addresses;
+			this.resolveTime = resolveTime;
+		}
+	}
+}
@@ -0,0 +1,180 @@
+package io.metersphere.plugin.tapd.utils;
+
+import io.metersphere.plugin.sdk.util.MSPluginException;
+import io.metersphere.plugin.sdk.util.PluginLogUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.ResponseExtractor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+public class SpoolDownloadUtils {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * 按偏移量发起下载请求
+	 */
+	@FunctionalInterface
+	public interface RangeRequest {
+
+		/**
+		 * 发起请求, 请求头需通过 {@link #prepareRequest(ClientHttpRequest, long)} 设置
+		 *
+		 * @param offset    起始偏移量
+		 * @param extractor 响应处理
+		 */
+		void execute(long offset, ResponseExtractor<Void> extractor);
+	}
+
+	/**
+	 * 设置下载请求头: 不压缩(保证长度可校验), 偏移量大于0时请求剩余部分
+	 *
+	 * @param request 请求
+	 * @param offset  起始偏移量
+	 */
+	public static void prepareRequest(ClientHttpRequest request, long offset) {
+		request.getHeaders().setAccept(List.of(MediaType.APPLICATION_OCTET_STREAM, MediaType.ALL));
+		request.getHeaders().set(HttpHeaders.ACCEPT_ENCODING, "identity");
+		if (offset > 0) {
+			request.getHeaders().set(HttpHeaders.RANGE, "bytes=" + offset + "-");
+		}
+	}
+
+	/**
+	 * 下载至本地临时文件, 连接中断时按已下载的长度断点续传, 完成并校验长度后以文件流交给调用方, 最后删除临时文件
+	 *
+	 * @param name               下载名称, 用于日志
+	 * @param maxRetries         最大重试次数
+	 * @param rangeRequest       下载请求
+	 * @param inputStreamHandler 流处理
+	 */
+	public static void download(String name, int maxRetries, RangeRequest rangeRequest, Consumer<InputStream> inputStreamHandler) {
+		Path spoolFile = null;
+		try {
+			spoolFile = Files.createTempFile("ms-plugin-download-", ".tmp");
+			long start = System.nanoTime();
+			long length = spool(name, maxRetries, rangeRequest, spoolFile);
+			PluginLogUtils.info("download [" + name + "] spooled " + length + " bytes in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+			try (InputStream inputStream = Files.newInputStream(spoolFile)) {
+				inputStreamHandler.accept(inputStream);
+			}
+		} catch (IOException e) {
+			throw new MSPluginException(e);
+		} finally {
+			if (spoolFile != null) {
+				try {
+					Files.deleteIfExists(spoolFile);
+				} catch (IOException e) {
+					PluginLogUtils.error("delete spool file error: " + e.getMessage());
+				}
+			}
+		}
+	}
+
+	private static long spool(String name, int maxRetries, RangeRequest rangeRequest, Path spoolFile) throws IOException {
+		try (FileChannel channel = FileChannel.open(spoolFile, StandardOpenOption.WRITE)) {
+			SpoolState state = new SpoolState();
+			for (int attempt = 0; ; attempt++) {
+				try {
+					rangeRequest.execute(state.position, response -> {
+						write(response, channel, state);
+						return null;
+					});
+					if (state.totalLength < 0 || state.position == state.totalLength) {
+						return state.position;
+					}
+					throw new ResourceAccessException("incomplete download, expected " + state.totalLength + " bytes but got " + state.position);
+				} catch (ResourceAccessException | HttpStatusCodeException e) {
+					if (e instanceof HttpStatusCodeException statusCodeException) {
+						if (statusCodeException.getStatusCode().value() == HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value()) {
+							// 偏移量无效, 重新下载
+							state.reset(channel);
+						} else if (!statusCodeException.getStatusCode().is5xxServerError()) {
+							throw e;
+						}
+					}
+					if (attempt >= maxRetries) {
+						throw e;
+					}
+					PluginLogUtils.info("download [" + name + "] interrupted at " + state.position + " bytes, retry " + (attempt + 1) + ": " + e.getMessage());
+					sleep(attempt);
+				}
+			}
+		}
+	}
+
+	private static void write(ClientHttpResponse response, FileChannel channel, SpoolState state) throws IOException {
+		if (response.getStatusCode().value() == HttpStatus.PARTIAL_CONTENT.value()) {
+			// eg: Content-Range: bytes 100-999/1000
+			String contentRange = response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE);
+			long rangeStart = parseRangeStart(contentRange);
+			if (rangeStart != state.position) {
+				state.reset(channel);
+				throw new IOException("unexpected content range: " + contentRange);
+			}
+			state.totalLength = parseRangeTotal(contentRange);
+		} else {
+			// 服务端不支持Range, 从头下载
+			state.reset(channel);
+			state.totalLength = response.getHeaders().getContentLength();
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		try (ReadableByteChannel source = Channels.newChannel(response.getBody())) {
+			while (source.read(buffer) != -1) {
+				buffer.flip();
+				while (buffer.hasRemaining()) {
+					state.position += channel.write(buffer, state.position);
+				}
+				buffer.clear();
+			}
+		}
+	}
+
+	private static long parseRangeStart(String contentRange) {
+		String range = StringUtils.substringBetween(contentRange, "bytes ", "-");
+		return StringUtils.isNumeric(StringUtils.trim(range)) ? Long.parseLong(range.trim()) : -1;
+	}
+
+	private static long parseRangeTotal(String contentRange) {
+		String total = StringUtils.substringAfterLast(contentRange, "/");
+		return StringUtils.isNumeric(StringUtils.trim(total)) ? Long.parseLong(total.trim()) : -1;
+	}
+
+	private static void sleep(int attempt) {
+		try {
+			Thread.sleep(Math.min(5000L, 500L << attempt));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MSPluginException(e);
+		}
+	}
+
+	private static class SpoolState {
+		private long position;
+		private long totalLength = -1;
+
+		private void reset(FileChannel channel) throws IOException {
+			channel.truncate(0);
+			position = 0;
+			totalLength = -1;
+		}
+	}
+}
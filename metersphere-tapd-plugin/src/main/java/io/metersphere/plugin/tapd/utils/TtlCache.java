@@ -0,0 +1,241 @@
+package io.metersphere.plugin.tapd.utils;
+
+import io.metersphere.plugin.sdk.util.MSPluginException;
+import io.metersphere.plugin.sdk.util.PluginLogUtils;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * 带过期时间的本地缓存
+ * 1. 未过期直接返回; 过期但未超过最长陈旧时间时返回旧值, 同时后台刷新(stale-while-revalidate); 否则同步加载
+ * 2. 同一Key同时只有一个加载, 其他调用方等待同一次加载的结果
+ * 3. 按最近访问淘汰, 限制条目数及估算的内存占用
+ *
+ * @param <V> 缓存值, 需为只读对象
+ */
+public class TtlCache<V> {
+
+	private final String name;
+	private final long ttlNanos;
+	private final long maxStaleNanos;
+	private final int maxEntries;
+	private final long maxWeight;
+	private final ToLongFunction<V> weigher;
+
+	/**
+	 * 按访问顺序排列, 访问需加锁
+	 */
+	private final LinkedHashMap<String, CacheEntry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private final Map<String, CompletableFuture<V>> loadings = new ConcurrentHashMap<>();
+	private long totalWeight;
+
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong staleHitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+	private final AtomicLong refreshCount = new AtomicLong();
+	private final AtomicLong refreshFailureCount = new AtomicLong();
+	private final AtomicLong evictionCount = new AtomicLong();
+
+	/**
+	 * @param name            名称, 用于日志
+	 * @param ttlSeconds      过期时间(秒)
+	 * @param maxStaleSeconds 最长陈旧时间(秒), 超过后不再返回旧值
+	 * @param maxEntries      最大条目数
+	 * @param maxWeight       最大估算内存(字节)
+	 * @param weigher         估算单个值的内存(字节)
+	 */
+	public TtlCache(String name, long ttlSeconds, long maxStaleSeconds, int maxEntries, long maxWeight, ToLongFunction<V> weigher) {
+		this.name = name;
+		this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+		this.maxStaleNanos = TimeUnit.SECONDS.toNanos(Math.max(ttlSeconds, maxStaleSeconds));
+		this.maxEntries = maxEntries;
+		this.maxWeight = maxWeight;
+		this.weigher = weigher;
+	}
+
+	/**
+	 * 获取缓存, 不存在或已超过最长陈旧时间时同步加载
+	 *
+	 * @param key    Key
+	 * @param loader 加载方法
+	 * @return 缓存值
+	 */
+	public V get(String key, Supplier<V> loader) {
+		V value = getIfPresent(key, loader);
+		if (value != null) {
+			return value;
+		}
+		missCount.incrementAndGet();
+		return load(key, loader);
+	}
+
+	/**
+	 * 获取缓存, 不存在时返回空, 不加载; 已过期时返回旧值并在后台刷新
+	 *
+	 * @param key    Key
+	 * @param loader 加载方法
+	 * @return 缓存值
+	 */
+	public V getIfPresent(String key, Supplier<V> loader) {
+		CacheEntry<V> entry;
+		synchronized (entries) {
+			entry = entries.get(key);
+		}
+		if (entry == null) {
+			return null;
+		}
+		long age = System.nanoTime() - entry.loadTime;
+		if (age < ttlNanos) {
+			hitCount.incrementAndGet();
+			return entry.value;
+		}
+		if (age < maxStaleNanos) {
+			staleHitCount.incrementAndGet();
+			refreshAsync(key, loader);
+			return entry.value;
+		}
+		return null;
+	}
+
+	/**
+	 * 后台加载, 已有加载进行中时忽略
+	 *
+	 * @param key    Key
+	 * @param loader 加载方法
+	 */
+	public void refreshAsync(String key, Supplier<V> loader) {
+		if (loadings.containsKey(key)) {
+			return;
+		}
+		Thread.ofVirtual().name(name + "-refresh").start(() -> {
+			try {
+				refreshCount.incrementAndGet();
+				load(key, loader);
+			} catch (Exception e) {
+				refreshFailureCount.incrementAndGet();
+				PluginLogUtils.error(name + " refresh [" + key + "] error: " + e.getMessage());
+			}
+		});
+	}
+
+	/**
+	 * 使缓存失效
+	 *
+	 * @param key Key
+	 */
+	public void invalidate(String key) {
+		synchronized (entries) {
+			CacheEntry<V> entry = entries.remove(key);
+			if (entry != null) {
+				totalWeight -= entry.weight;
+			}
+		}
+	}
+
+	/**
+	 * 使满足条件的缓存失效
+	 *
+	 * @param keyFilter Key过滤条件
+	 */
+	public void invalidateIf(Predicate<String> keyFilter) {
+		synchronized (entries) {
+			Iterator<Map.Entry<String, CacheEntry<V>>> iterator = entries.entrySet().iterator();
+			while (iterator.hasNext()) {
+				Map.Entry<String, CacheEntry<V>> entry = iterator.next();
+				if (keyFilter.test(entry.getKey())) {
+					totalWeight -= entry.getValue().weight;
+					iterator.remove();
+				}
+			}
+		}
+	}
+
+	public String getStats() {
+		int size;
+		long weight;
+		synchronized (entries) {
+			size = entries.size();
+			weight = totalWeight;
+		}
+		return name + " size: " + size + ", weight: " + weight + ", hit: " + hitCount.get() + ", stale hit: " + staleHitCount.get()
+				+ ", miss: " + missCount.get() + ", refresh: " + refreshCount.get() + ", refresh failure: " + refreshFailureCount.get()
+				+ ", eviction: " + evictionCount.get();
+	}
+
+	private V load(String key, Supplier<V> loader) {
+		CompletableFuture<V> loading = new CompletableFuture<>();
+		CompletableFuture<V> existing = loadings.putIfAbsent(key, loading);
+		if (existing != null) {
+			return join(existing);
+		}
+		try {
+			V value = loader.get();
+			put(key, value);
+			loading.complete(value);
+			return value;
+		} catch (RuntimeException e) {
+			loading.completeExceptionally(e);
+			throw e;
+		} finally {
+			loadings.remove(key, loading);
+		}
+	}
+
+	private V join(CompletableFuture<V> loading) {
+		try {
+			return loading.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			throw new MSPluginException(e.getCause());
+		}
+	}
+
+	private void put(String key, V value) {
+		CacheEntry<V> entry = new CacheEntry<>(value, System.nanoTime(), weigher.applyAsLong(value));
+		synchronized (entries) {
+			if (entry.weight > maxWeight) {
+				// 单个值超过内存上限时不缓存, 避免挤掉其他条目
+				invalidate(key);
+				evictionCount.incrementAndGet();
+				return;
+			}
+			CacheEntry<V> previous = entries.put(key, entry);
+			if (previous != null) {
+				totalWeight -= previous.weight;
+			}
+			totalWeight += entry.weight;
+			// 淘汰最久未访问的条目
+			Iterator<CacheEntry<V>> iterator = entries.values().iterator();
+			while ((entries.size() > maxEntries || totalWeight > maxWeight) && iterator.hasNext()) {
+				totalWeight -= iterator.next().weight;
+				iterator.remove();
+				evictionCount.incrementAndGet();
+			}
+		}
+		PluginLogUtils.info(name + " loaded [" + key + "], " + getStats());
+	}
+
+	private static class CacheEntry<V> {
+		private final V value;
+		private final long loadTime;
+		private final long weight;
+
+		private CacheEntry(V value, long loadTime, long weight) {
+			this.value = value;
+			this.loadTime = loadTime;
+			this.weight = weight;
+		}
+	}
+}
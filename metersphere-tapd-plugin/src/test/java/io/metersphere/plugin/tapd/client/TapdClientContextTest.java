@@ -0,0 +1,32 @@
+package io.metersphere.plugin.tapd.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 不同认证信息的缓存Key相互隔离
+ */
+public class TapdClientContextTest {
+
+	/**
+	 * "Aa"与"BB"的hashCode相同, 用于验证Key不依赖hashCode
+	 */
+	private static final String[] PASSWORDS = {"Aa", "BB", "AaAa", "BBBB", "AaBB", "BBAa"};
+
+	@Test
+	public void testCacheKeyDistinguishesCredentials() {
+		Set<String> cacheKeys = new HashSet<>();
+		for (String password : PASSWORDS) {
+			assertTrue(cacheKeys.add(new TapdClientContext("api", password).getCacheKey()));
+		}
+		// 分隔符不能造成歧义
+		assertNotEquals(new TapdClientContext("a|b", "c").getCacheKey(), new TapdClientContext("a", "b|c").getCacheKey());
+		assertEquals(new TapdClientContext("api", "Aa").getCacheKey(), new TapdClientContext("api", "Aa").getCacheKey());
+		// Key中不出现明文口令
+		assertFalse(new TapdClientContext("api", "secret-password").getCacheKey().contains("secret-password"));
+	}
+}
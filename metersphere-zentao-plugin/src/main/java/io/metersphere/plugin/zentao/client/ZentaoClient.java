@@ -5,12 +5,15 @@ import io.metersphere.plugin.platform.spi.BaseClient;
 import io.metersphere.plugin.sdk.util.MSPluginException;
 import io.metersphere.plugin.sdk.util.PluginLogUtils;
 import io.metersphere.plugin.sdk.util.PluginUtils;
+import io.metersphere.plugin.zentao.constants.ZentaoPluginProperties;
 import io.metersphere.plugin.zentao.domain.ZentaoIntegrationConfig;
 import io.metersphere.plugin.zentao.domain.ZentaoJsonApiUrl;
 import io.metersphere.plugin.zentao.domain.response.json.ZentaoAddBugResponse;
 import io.metersphere.plugin.zentao.domain.response.json.ZentaoAuthUserResponse;
 import io.metersphere.plugin.zentao.domain.response.json.ZentaoBugResponse;
 import io.metersphere.plugin.zentao.domain.response.json.ZentaoSessionResponse;
+import io.metersphere.plugin.zentao.utils.HttpClientUtils;
+import io.metersphere.plugin.zentao.utils.SpoolDownloadUtils;
 import io.metersphere.plugin.zentao.utils.UnicodeConvertUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.core.io.FileSystemResource;
@@ -19,11 +22,15 @@ import org.springframework.util.CollectionUtils;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.ResponseExtractor;
 
 import java.io.File;
 import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * 由于禅道最新Latest版本18.10所支持的RESTFUL-API接口不完善, 且不支持附件相关功能;
@@ -32,11 +39,10 @@ import java.util.function.Consumer;
  */
 public abstract class ZentaoClient extends BaseClient {
 
-	protected static String ENDPOINT;
-
-	protected static String USER_NAME;
-
-	protected static String PASSWD;
+	/**
+	 * 禅道地址及认证信息
+	 */
+	protected volatile ZentaoClientContext context;
 
 	public ZentaoJsonApiUrl requestUrl;
 
@@ -45,7 +51,8 @@ public abstract class ZentaoClient extends BaseClient {
 	public static final String END_SUFFIX = "/";
 
 	public ZentaoClient(String url) {
-		ENDPOINT = url;
+		restTemplate = HttpClientUtils.getRestTemplate();
+		context = new ZentaoClientContext(url, null, null);
 	}
 
 	/**
@@ -57,25 +64,33 @@ public abstract class ZentaoClient extends BaseClient {
 		if (config == null) {
 			throw new MSPluginException("禅道服务集成配置为空");
 		}
-		USER_NAME = config.getAccount();
-		PASSWD = config.getPassword();
-		ENDPOINT = config.getAddress();
+		context = new ZentaoClientContext(config.getAddress(), config.getAccount(), config.getPassword());
 	}
 
 	/**
-	 * 登录认证
+	 * 登录认证(获取新会话, 不经过会话池)
 	 *
 	 * @return sessionId
 	 */
 	public String auth() {
+		return auth(context);
+	}
+
+	/**
+	 * 使用指定上下文登录认证
+	 *
+	 * @param ctx 客户端上下文
+	 * @return sessionId
+	 */
+	private String auth(ZentaoClientContext ctx) {
 		ZentaoAuthUserResponse authUser;
 		String sessionId;
 		try {
 			sessionId = getSessionId();
 			String loginUrl = requestUrl.getLogin();
 			MultiValueMap<String, Object> paramMap = new LinkedMultiValueMap<>();
-			paramMap.add("account", USER_NAME);
-			paramMap.add("password", PASSWD);
+			paramMap.add("account", ctx.getAccount());
+			paramMap.add("password", ctx.getPassword());
 			ResponseEntity<String> response = restTemplate.exchange(loginUrl + sessionId, HttpMethod.POST, getHttpEntity(paramMap), String.class);
 			authUser = getResultForObject(ZentaoAuthUserResponse.class, response);
 		} catch (Exception e) {
@@ -88,7 +103,7 @@ public abstract class ZentaoClient extends BaseClient {
 			// 登录失败，获取的session无效，置空session
 			throw new MSPluginException("zentao login fail, user is null");
 		}
-		if (!StringUtils.equals(user.getAccount(), USER_NAME)) {
+		if (!StringUtils.equals(user.getAccount(), ctx.getAccount())) {
 			PluginLogUtils.error("zentao login fail, inconsistent users");
 			throw new MSPluginException("zentao login fail, inconsistent user");
 		}
@@ -103,12 +118,11 @@ public abstract class ZentaoClient extends BaseClient {
 	 */
 	public ZentaoAddBugResponse.Bug addBug(MultiValueMap<String, Object> paramMap) {
 		PluginLogUtils.info("Add Zentao Bug Param:" + paramMap);
-		String sessionId = auth();
 		String defaultProject = getDefaultProject(paramMap);
 		ResponseEntity<String> response;
 		try {
-			response = restTemplate.exchange(requestUrl.getBugCreate() + sessionId + (StringUtils.isNotEmpty(defaultProject) ? "&project=" + defaultProject : StringUtils.EMPTY),
-					HttpMethod.POST, getHttpEntity(paramMap), String.class);
+			response = exchangeWithSession(sessionId -> restTemplate.exchange(requestUrl.getBugCreate() + sessionId + (StringUtils.isNotEmpty(defaultProject) ? "&project=" + defaultProject : StringUtils.EMPTY),
+					HttpMethod.POST, getHttpEntity(paramMap), String.class), false);
 		} catch (Exception e) {
 			PluginLogUtils.error(e.getMessage(), e);
 			throw new MSPluginException(e.getMessage());
@@ -134,11 +148,10 @@ public abstract class ZentaoClient extends BaseClient {
 	 */
 	public void updateBug(String id, MultiValueMap<String, Object> paramMap) {
 		PluginLogUtils.info("Update Zentao Bug Param:" + paramMap);
-		String sessionId = auth();
 		ResponseEntity<String> response;
 		try {
-			response = restTemplate.exchange(requestUrl.getBugUpdate(),
-					HttpMethod.POST, getHttpEntity(paramMap), String.class, id, sessionId);
+			response = exchangeWithSession(sessionId -> restTemplate.exchange(requestUrl.getBugUpdate(),
+					HttpMethod.POST, getHttpEntity(paramMap), String.class, id, sessionId), false);
 		} catch (Exception e) {
 			PluginLogUtils.error(e.getMessage(), e);
 			throw new MSPluginException(e.getMessage());
@@ -159,9 +172,8 @@ public abstract class ZentaoClient extends BaseClient {
 	 * @param id 缺陷ID
 	 */
 	public void deleteBug(String id) {
-		String sessionId = auth();
 		try {
-			restTemplate.exchange(requestUrl.getBugDelete(), HttpMethod.GET, getHttpEntity(), String.class, id, sessionId);
+			exchangeHtmlWithSession(sessionId -> restTemplate.exchange(requestUrl.getBugDelete(), HttpMethod.GET, getHttpEntity(), String.class, id, sessionId));
 		} catch (Exception e) {
 			PluginLogUtils.error(e.getMessage(), e);
 			throw new MSPluginException(e.getMessage());
@@ -175,8 +187,7 @@ public abstract class ZentaoClient extends BaseClient {
 	 * @return 缺陷详情
 	 */
 	public Map<String, Object> getBugById(String id) {
-		String sessionId = auth();
-		ResponseEntity<String> response = restTemplate.exchange(requestUrl.getBugGet(), HttpMethod.GET, getHttpEntity(), String.class, id, sessionId);
+		ResponseEntity<String> response = exchangeWithSession(sessionId -> restTemplate.exchange(requestUrl.getBugGet(), HttpMethod.GET, getHttpEntity(), String.class, id, sessionId));
 		ZentaoBugResponse bugResponse = getResultForObject(ZentaoBugResponse.class, response);
 		if (StringUtils.equalsIgnoreCase(bugResponse.getStatus(), "fail")) {
 			ZentaoBugResponse.Bug bug = new ZentaoBugResponse.Bug();
@@ -198,9 +209,8 @@ public abstract class ZentaoClient extends BaseClient {
 	 * @return 用户集合
 	 */
 	public Map<String, Object> getUsers() {
-		String sessionId = auth();
-		ResponseEntity<String> response = restTemplate.exchange(requestUrl.getUserGet() + sessionId,
-				HttpMethod.GET, getHttpEntity(), String.class);
+		ResponseEntity<String> response = exchangeWithSession(sessionId -> restTemplate.exchange(requestUrl.getUserGet() + sessionId,
+				HttpMethod.GET, getHttpEntity(), String.class));
 		// noinspection unchecked
 		return PluginUtils.parseMap(response.getBody());
 	}
@@ -212,9 +222,8 @@ public abstract class ZentaoClient extends BaseClient {
 	 * @return 需求集合
 	 */
 	public Map<String, Object> pageDemands(String projectKey) {
-		String sessionId = auth();
-		ResponseEntity<String> response = restTemplate.exchange(requestUrl.getStoryGet() + sessionId,
-				HttpMethod.GET, getHttpEntity(), String.class, projectKey);
+		ResponseEntity<String> response = exchangeWithSession(sessionId -> restTemplate.exchange(requestUrl.getStoryGet() + sessionId,
+				HttpMethod.GET, getHttpEntity(), String.class, projectKey));
 		// noinspection unchecked
 		return PluginUtils.parseMap(response.getBody());
 	}
@@ -226,9 +235,8 @@ public abstract class ZentaoClient extends BaseClient {
 	 * @return 计划集合
 	 */
 	public List<SelectOption> getProductPlanOption(String projectKey) {
-		String sessionId = auth();
-		ResponseEntity<String> response = restTemplate.exchange(requestUrl.getProductPlanUrl(),
-				HttpMethod.GET, getHttpEntity(), String.class, projectKey, sessionId);
+		ResponseEntity<String> response = exchangeWithSession(sessionId -> restTemplate.exchange(requestUrl.getProductPlanUrl(),
+				HttpMethod.GET, getHttpEntity(), String.class, projectKey, sessionId));
 		// noinspection unchecked
 		Map<String, Object> responseMap = PluginUtils.parseMap(response.getBody());
 		if (responseMap == null) {
@@ -262,9 +270,8 @@ public abstract class ZentaoClient extends BaseClient {
 	 * @param projectKey 项目Key
 	 */
 	public void checkProject(String projectKey) {
-		String sessionId = auth();
-		ResponseEntity<String> response = restTemplate.exchange(requestUrl.getProductGet(),
-				HttpMethod.GET, getHttpEntity(), String.class, projectKey, sessionId);
+		ResponseEntity<String> response = exchangeWithSession(sessionId -> restTemplate.exchange(requestUrl.getProductGet(),
+				HttpMethod.GET, getHttpEntity(), String.class, projectKey, sessionId));
 		try {
 			// noinspection unchecked
 			Map<String, Object> data = PluginUtils.parseMap(PluginUtils.parseMap(response.getBody()).get("data").toString());
@@ -285,19 +292,25 @@ public abstract class ZentaoClient extends BaseClient {
 	 * @param objectId   对象ID
 	 * @param file       文件
 	 */
-	public void uploadAttachment(String objectType, String objectId, File file) {
-		String sessionId = auth();
+	public String uploadAttachment(String objectType, String objectId, File file) {
 		MultiValueMap<String, Object> paramMap = new LinkedMultiValueMap<>();
 		FileSystemResource fileResource = new FileSystemResource(file);
 		paramMap.add("files", fileResource);
 		HttpHeaders header = getHeader();
 		header.setContentType(MediaType.parseMediaType("multipart/form-data; charset=UTF-8"));
 		HttpEntity<MultiValueMap<String, Object>> httpEntity = getHttpEntity(paramMap, header);
+		String fileId;
 		try {
-			restTemplate.exchange(requestUrl.getFileUpload(), HttpMethod.POST, httpEntity, String.class, objectType, objectId, sessionId);
+			ResponseEntity<String> responseEntity = exchangeWithSession(sessionId -> restTemplate.exchange(requestUrl.getFileUpload(), HttpMethod.POST, httpEntity, String.class, objectType, objectId, sessionId), false);
+			fileId = parseUploadFileId(responseEntity.getBody());
 		} catch (Exception e) {
-			PluginLogUtils.info("upload zentao attachment error");
+			PluginLogUtils.error(e, "upload zentao attachment error: " + e.getMessage());
+			throw new MSPluginException("上传禅道附件失败: " + file.getName());
 		}
+		if (StringUtils.isBlank(fileId)) {
+			throw new MSPluginException("上传禅道附件失败: " + file.getName());
+		}
+		return fileId;
 	}
 
 	/**
@@ -306,9 +319,8 @@ public abstract class ZentaoClient extends BaseClient {
 	 * @param fileId 文件ID
 	 */
 	public void deleteAttachment(String fileId) {
-		String sessionId = auth();
 		try {
-			restTemplate.exchange(requestUrl.getFileDelete(), HttpMethod.GET, getHttpEntity(), String.class, fileId, sessionId);
+			exchangeHtmlWithSession(sessionId -> restTemplate.exchange(requestUrl.getFileDelete(), HttpMethod.GET, getHttpEntity(), String.class, fileId, sessionId));
 		} catch (Exception e) {
 			PluginLogUtils.info("delete zentao attachment error");
 		}
@@ -321,18 +333,37 @@ public abstract class ZentaoClient extends BaseClient {
 	 * @param inputStreamHandler 流处理
 	 */
 	public void getAttachmentBytes(String fileId, Consumer<InputStream> inputStreamHandler) {
+		if (ZentaoPluginProperties.ATTACHMENT_SPOOL_ENABLED) {
+			// 先下载至本地临时文件, 尽快释放连接, 中断时断点续传
+			SpoolDownloadUtils.download("zentao file " + fileId, ZentaoPluginProperties.ATTACHMENT_DOWNLOAD_MAX_RETRIES,
+					(offset, extractor) -> withSession(sessionId -> restTemplate.execute(requestUrl.getFileDownload(), HttpMethod.GET,
+							request -> SpoolDownloadUtils.prepareRequest(request, offset), checkDownloadSession(extractor), fileId, sessionId)), inputStreamHandler);
+			return;
+		}
 		RequestCallback requestCallback = request -> {
 			// 定义请求头的接收类型
 			request.getHeaders().setAccept(Arrays.asList(MediaType.APPLICATION_OCTET_STREAM, MediaType.ALL));
 			request.getHeaders().set(HttpHeaders.ACCEPT_ENCODING, "gzip,x-gzip,deflate");
 		};
 
-		String sessionId = auth();
-		restTemplate.execute(requestUrl.getFileDownload(), HttpMethod.GET,
-				requestCallback, (clientHttpResponse) -> {
+		withSession(sessionId -> restTemplate.execute(requestUrl.getFileDownload(), HttpMethod.GET,
+				requestCallback, checkDownloadSession((clientHttpResponse) -> {
 					inputStreamHandler.accept(clientHttpResponse.getBody());
 					return null;
-				}, fileId, sessionId);
+				}), fileId, sessionId));
+	}
+
+	/**
+	 * 下载附件至指定文件
+	 *
+	 * @param fileId   文件ID
+	 * @param target   目标文件
+	 * @param maxBytes 最大字节数, 超过时中止下载
+	 */
+	public void downloadAttachment(String fileId, Path target, long maxBytes) {
+		SpoolDownloadUtils.downloadTo("zentao file " + fileId, ZentaoPluginProperties.ATTACHMENT_DOWNLOAD_MAX_RETRIES,
+				(offset, extractor) -> withSession(sessionId -> restTemplate.execute(requestUrl.getFileDownload(), HttpMethod.GET,
+						request -> SpoolDownloadUtils.prepareRequest(request, offset), checkDownloadSession(extractor), fileId, sessionId)), target, maxBytes);
 	}
 
 	/**
@@ -344,9 +375,29 @@ public abstract class ZentaoClient extends BaseClient {
 	 * @return 缺陷集合
 	 */
 	public Map<String, Object> getBugsByProjectId(Integer pageNum, Integer pageSize, String projectId) {
-		String sessionId = auth();
-		ResponseEntity<String> response = restTemplate.exchange(requestUrl.getBugList(),
-				HttpMethod.GET, getHttpEntity(), String.class, projectId, 9999999, pageSize, pageNum, sessionId);
+		ResponseEntity<String> response = exchangeWithSession(sessionId -> restTemplate.exchange(requestUrl.getBugList(),
+				HttpMethod.GET, getHttpEntity(), String.class, projectId, 9999999, pageSize, pageNum, sessionId));
+		try {
+			// noinspection unchecked
+			return PluginUtils.parseMap(PluginUtils.parseMap(response.getBody()).get("data").toString());
+		} catch (Exception e) {
+			PluginLogUtils.error(e);
+			throw new MSPluginException("获取项目缺陷集合异常, 请检查集成或项目配置!");
+		}
+	}
+
+	/**
+	 * 获取项目下缺陷集合(排序)
+	 *
+	 * @param pageNum   页码
+	 * @param pageSize  页面大小
+	 * @param projectId 项目ID
+	 * @param orderBy   排序, 例如: lastEditedDate_desc
+	 * @return 缺陷集合
+	 */
+	public Map<String, Object> getBugsByProjectId(Integer pageNum, Integer pageSize, String projectId, String orderBy) {
+		ResponseEntity<String> response = exchangeWithSession(sessionId -> restTemplate.exchange(requestUrl.getBugListOrderBy(),
+				HttpMethod.GET, getHttpEntity(), String.class, projectId, orderBy, 9999999, pageSize, pageNum, sessionId));
 		try {
 			// noinspection unchecked
 			return PluginUtils.parseMap(PluginUtils.parseMap(response.getBody()).get("data").toString());
@@ -356,6 +407,159 @@ public abstract class ZentaoClient extends BaseClient {
 		}
 	}
 
+	/**
+	 * 从会话池借出会话执行请求, 会话过期({@link ZentaoSessionExpiredException})时重新登录并重试一次
+	 *
+	 * @param action 请求方法, 只能是可重复执行的请求
+	 * @return 请求结果
+	 */
+	protected <T> T withSession(Function<String, T> action) {
+		ZentaoClientContext ctx = context;
+		ZentaoSessionPool sessionPool = ZentaoSessionPool.getInstance(ctx.getCacheKey());
+		String sessionId = sessionPool.borrow(() -> auth(ctx));
+		boolean reusable = true;
+		try {
+			try {
+				return action.apply(sessionId);
+			} catch (ZentaoSessionExpiredException e) {
+				reusable = false;
+				sessionId = auth(ctx);
+				reusable = true;
+				return action.apply(sessionId);
+			}
+		} catch (ZentaoSessionExpiredException e) {
+			reusable = false;
+			throw new MSPluginException("禅道会话已失效, 请检查集成配置");
+		} finally {
+			sessionPool.giveBack(sessionId, reusable);
+		}
+	}
+
+	/**
+	 * 从会话池借出会话执行请求, 会话过期时重新登录并重试一次
+	 *
+	 * @param exchange 请求方法
+	 * @return 响应内容
+	 */
+	protected ResponseEntity<String> exchangeWithSession(Function<String, ResponseEntity<String>> exchange) {
+		return exchangeWithSession(exchange, true);
+	}
+
+	/**
+	 * 从会话池借出会话执行请求
+	 *
+	 * @param exchange  请求方法
+	 * @param retryable 会话过期时是否重新登录并重试, 非幂等请求(POST)不能重试, 直接失败
+	 * @return 响应内容
+	 */
+	protected ResponseEntity<String> exchangeWithSession(Function<String, ResponseEntity<String>> exchange, boolean retryable) {
+		// 同一请求内始终使用同一组认证信息
+		ZentaoClientContext ctx = context;
+		ZentaoSessionPool sessionPool = ZentaoSessionPool.getInstance(ctx.getCacheKey());
+		String sessionId = sessionPool.borrow(() -> auth(ctx));
+		boolean reusable = true;
+		try {
+			ResponseEntity<String> response = exchange.apply(sessionId);
+			if (isSessionExpired(response)) {
+				reusable = false;
+				if (!retryable) {
+					throw new MSPluginException("禅道会话已过期, 请重试");
+				}
+				sessionId = auth(ctx);
+				reusable = true;
+				response = exchange.apply(sessionId);
+				if (isSessionExpired(response)) {
+					reusable = false;
+					throw new MSPluginException("禅道会话已失效, 请检查集成配置");
+				}
+			}
+			return response;
+		} finally {
+			sessionPool.giveBack(sessionId, reusable);
+		}
+	}
+
+	/**
+	 * 使用会话执行返回HTML的请求(如删除缺陷、删除附件, 成功时禅道返回跳转页面的HTML/JS)
+	 * 响应不是JSON不代表会话过期, 只有跳转到登录页时才认为会话过期; 此时不重新执行请求, 直接失败
+	 *
+	 * @param exchange 请求方法
+	 * @return 响应内容
+	 */
+	protected ResponseEntity<String> exchangeHtmlWithSession(Function<String, ResponseEntity<String>> exchange) {
+		ZentaoClientContext ctx = context;
+		ZentaoSessionPool sessionPool = ZentaoSessionPool.getInstance(ctx.getCacheKey());
+		String sessionId = sessionPool.borrow(() -> auth(ctx));
+		boolean reusable = true;
+		try {
+			ResponseEntity<String> response = exchange.apply(sessionId);
+			if (isLoginPage(response)) {
+				reusable = false;
+				throw new MSPluginException("禅道会话已过期, 请重试");
+			}
+			return response;
+		} finally {
+			sessionPool.giveBack(sessionId, reusable);
+		}
+	}
+
+	/**
+	 * JSON-API会话是否过期: JSON-API正常返回JSON, 会话过期时禅道跳转(或直接返回)登录页HTML
+	 * 只适用于JSON-API, 返回HTML的请求使用{@link #isLoginPage(ResponseEntity)}
+	 *
+	 * @param response 响应内容
+	 * @return 是否过期
+	 */
+	private boolean isSessionExpired(ResponseEntity<String> response) {
+		if (response == null) {
+			return false;
+		}
+		if (response.getStatusCode().is3xxRedirection()) {
+			return true;
+		}
+		String body = StringUtils.stripStart(response.getBody(), null);
+		return StringUtils.isNotEmpty(body) && body.charAt(0) != '{' && body.charAt(0) != '[';
+	}
+
+	/**
+	 * 是否跳转到登录页: 重定向至登录页, 或返回登录页(跳转登录页的脚本)
+	 *
+	 * @param response 响应内容
+	 * @return 是否跳转到登录页
+	 */
+	private boolean isLoginPage(ResponseEntity<String> response) {
+		if (response == null) {
+			return false;
+		}
+		if (response.getStatusCode().is3xxRedirection()) {
+			URI location = response.getHeaders().getLocation();
+			return location != null && isLoginUrl(location.toString());
+		}
+		String body = StringUtils.stripStart(response.getBody(), null);
+		return StringUtils.isNotEmpty(body) && body.charAt(0) != '{' && body.charAt(0) != '[' && isLoginUrl(body);
+	}
+
+	private boolean isLoginUrl(String text) {
+		return StringUtils.containsAny(text, "user-login", "m=user&f=login", "m=user&amp;f=login");
+	}
+
+	/**
+	 * 下载前校验响应: 禅道下载文件时返回Content-Disposition, 会话过期时返回登录页HTML, 避免将登录页当作附件保存
+	 *
+	 * @param extractor 响应处理
+	 * @return 校验后再处理响应的ResponseExtractor
+	 */
+	private <T> ResponseExtractor<T> checkDownloadSession(ResponseExtractor<T> extractor) {
+		return response -> {
+			MediaType contentType = response.getHeaders().getContentType();
+			if (response.getStatusCode().is3xxRedirection()
+					|| (contentType != null && contentType.isCompatibleWith(MediaType.TEXT_HTML) && !response.getHeaders().containsKey(HttpHeaders.CONTENT_DISPOSITION))) {
+				throw new ZentaoSessionExpiredException();
+			}
+			return extractor.extractData(response);
+		};
+	}
+
 	/**
 	 * 获取sessionId
 	 *
@@ -381,16 +585,26 @@ public abstract class ZentaoClient extends BaseClient {
 		return StringUtils.EMPTY;
 	}
 
+	/**
+	 * 获取缓存Key
+	 *
+	 * @return 缓存Key
+	 */
+	public String getCacheKey() {
+		return context.getCacheKey();
+	}
+
 	/**
 	 * 获取请求地址
 	 *
 	 * @return 请求地址
 	 */
 	public String getBaseUrl() {
-		if (ENDPOINT.endsWith(END_SUFFIX)) {
-			return ENDPOINT.substring(0, ENDPOINT.length() - 1);
+		String endpoint = context.getEndpoint();
+		if (endpoint.endsWith(END_SUFFIX)) {
+			return endpoint.substring(0, endpoint.length() - 1);
 		}
-		return ENDPOINT;
+		return endpoint;
 	}
 
 	/**
@@ -421,20 +635,12 @@ public abstract class ZentaoClient extends BaseClient {
 	 */
 	public String uploadFile(File file, String objectType, String objectId) {
 		String id = "";
-		String sessionId = auth();
 		MultiValueMap<String, Object> paramMap = new LinkedMultiValueMap<>();
 		paramMap.add("files", new FileSystemResource(file));
 		try {
-			ResponseEntity<String> responseEntity = restTemplate.exchange(requestUrl.getFileUpload(), HttpMethod.POST, getHttpEntity(paramMap),
-					String.class, objectType, objectId, sessionId);
-			// noinspection unchecked
-			Map<String, Object> dataMap = (Map<String, Object>) PluginUtils.parseMap(responseEntity.getBody());
-			// noinspection unchecked
-			Map<String, Object> data = (Map<String, Object>) PluginUtils.parseObject(dataMap.get("data").toString());
-			Set<String> set = data.keySet();
-			if (!set.isEmpty()) {
-				id = (String) set.toArray()[0];
-			}
+			ResponseEntity<String> responseEntity = exchangeWithSession(sessionId -> restTemplate.exchange(requestUrl.getFileUpload(), HttpMethod.POST, getHttpEntity(paramMap),
+					String.class, objectType, objectId, sessionId), false);
+			id = StringUtils.defaultString(parseUploadFileId(responseEntity.getBody()));
 		} catch (Exception e) {
 			PluginLogUtils.error(e, e.getMessage());
 		}
@@ -442,6 +648,21 @@ public abstract class ZentaoClient extends BaseClient {
 		return id;
 	}
 
+	/**
+	 * 解析上传文件返回的文件ID
+	 *
+	 * @param body 响应内容
+	 * @return 文件ID, 没有时返回空
+	 */
+	private String parseUploadFileId(String body) {
+		// noinspection unchecked
+		Map<String, Object> dataMap = (Map<String, Object>) PluginUtils.parseMap(body);
+		// noinspection unchecked
+		Map<String, Object> data = (Map<String, Object>) PluginUtils.parseObject(dataMap.get("data").toString());
+		Set<String> set = data.keySet();
+		return set.isEmpty() ? null : set.iterator().next();
+	}
+
 	protected HttpHeaders getHeader() {
 		HttpHeaders httpHeaders = new HttpHeaders();
 		httpHeaders.set(HttpHeaders.ACCEPT_ENCODING, "gzip,x-gzip,deflate");
@@ -459,4 +680,10 @@ public abstract class ZentaoClient extends BaseClient {
 	protected HttpEntity<MultiValueMap<String, Object>> getHttpEntity(MultiValueMap<String, Object> paramMap, MultiValueMap<String, String> headers) {
 		return new HttpEntity<>(paramMap, headers);
 	}
+
+	/**
+	 * 会话过期, 由{@link #withSession(Function)}重新登录后重试
+	 */
+	private static class ZentaoSessionExpiredException extends RuntimeException {
+	}
 }
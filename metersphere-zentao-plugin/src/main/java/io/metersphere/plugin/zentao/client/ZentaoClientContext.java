@@ -0,0 +1,42 @@
+package io.metersphere.plugin.zentao.client;
+
+import io.metersphere.plugin.zentao.utils.FileDigestUtils;
+import lombok.Getter;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * 禅道客户端上下文(地址及认证信息)
+ * 不可变, 切换用户配置时整体替换, 保证同一请求内使用的是同一组认证信息
+ */
+@Getter
+public final class ZentaoClientContext {
+
+	/**
+	 * 禅道地址
+	 */
+	private final String endpoint;
+
+	/**
+	 * 禅道用户名
+	 */
+	private final String account;
+
+	/**
+	 * 禅道密码
+	 */
+	private final String password;
+
+	/**
+	 * 缓存Key {Token, 会话}
+	 */
+	private final String cacheKey;
+
+	public ZentaoClientContext(String endpoint, String account, String password) {
+		this.endpoint = endpoint;
+		this.account = account;
+		this.password = password;
+		String normalizedEndpoint = StringUtils.removeEnd(endpoint, "/");
+		// Key中不出现明文密码, 以地址、账号及密码的SHA-256摘要区分认证信息; 账号密码变更后不会复用旧的Token及会话
+		this.cacheKey = normalizedEndpoint + "|" + account + "|" + FileDigestUtils.sha256Hex(normalizedEndpoint, account, password);
+	}
+}
@@ -31,6 +31,7 @@ public class ZentaoGetClient extends ZentaoClient {
 	 * 注意参数顺序不能调换
 	 */
 	private static final String BUG_LIST_URL = "/?m=bug&f=browse&productID={0}&branch=&browseType=all&param=0&orderBy=&recTotal={1}&recPerPage={2}&pageID={3}&t=json&zentaosid={4}";
+	private static final String BUG_LIST_ORDER_BY_URL = "/?m=bug&f=browse&productID={0}&branch=&browseType=all&param=0&orderBy={1}&recTotal={2}&recPerPage={3}&pageID={4}&t=json&zentaosid={5}";
 	private static final String PRODUCT_PLAN = "/?m=productplan&f=browse&productID={0}&t=json&zentaosid={1}";
 
 	public ZentaoGetClient(String url) {
@@ -54,6 +55,7 @@ public class ZentaoGetClient extends ZentaoClient {
 		request.setBugUpdate(getUrl(BUG_UPDATE));
 		request.setBugDelete(getNotSuperModelUrl(BUG_DELETE));
 		request.setBugList(getNotSuperModelUrl(BUG_LIST_URL));
+		request.setBugListOrderBy(getNotSuperModelUrl(BUG_LIST_ORDER_BY_URL));
 		request.setCreateMetaData(getNotSuperModelUrl(CREATE_META_DATA));
 		request.setProductGet(getUrl(PRODUCT_GET));
 		request.setFileDelete(getNotSuperModelUrl(FILE_DELETE));
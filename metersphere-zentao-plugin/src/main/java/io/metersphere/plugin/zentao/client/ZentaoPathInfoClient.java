@@ -28,6 +28,7 @@ public class ZentaoPathInfoClient extends ZentaoClient {
 	private static final Pattern IMG_PATTERN = Pattern.compile("file-read-(.*?)\"/>");
 	private static final String PRODUCT_GET = "/product-view-{0}.json?zentaosid={1}";
 	private static final String BUG_LIST_URL = "/bug-browse-{1}-0-all-0--{2}-{3}-{4}.json?&zentaosid={5}";
+	private static final String BUG_LIST_ORDER_BY_URL = "/bug-browse-{1}-0-all-0-{2}-{3}-{4}-{5}.json?&zentaosid={6}";
 	private static final String PRODUCT_PLAN = "/productplan-browse-{1}--0--0-0.json?&zentaosid={2}";
 
 	public ZentaoPathInfoClient(String url) {
@@ -51,6 +52,7 @@ public class ZentaoPathInfoClient extends ZentaoClient {
 		request.setBugUpdate(getUrl(BUG_UPDATE));
 		request.setBugDelete(getUrl(BUG_DELETE));
 		request.setBugList(getUrl(BUG_LIST_URL));
+		request.setBugListOrderBy(getUrl(BUG_LIST_ORDER_BY_URL));
 		request.setCreateMetaData(getUrl(CREATE_META_DATA));
 		request.setProductGet(getUrl(PRODUCT_GET));
 		request.setFileDelete(getUrl(FILE_DELETE));
@@ -10,6 +10,7 @@ import io.metersphere.plugin.zentao.constants.ZentaoRestApiUrl;
 import io.metersphere.plugin.zentao.domain.ZentaoIntegrationConfig;
 import io.metersphere.plugin.zentao.domain.request.rest.ZentaoRestBugEditRequest;
 import io.metersphere.plugin.zentao.domain.response.rest.*;
+import io.metersphere.plugin.zentao.utils.HttpClientUtils;
 import io.metersphere.plugin.zentao.utils.UnicodeConvertUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.http.*;
@@ -24,19 +25,9 @@ import java.util.Map;
 public class ZentaoRestClient extends BaseClient {
 
 	/**
-	 * 禅道地址
+	 * 禅道地址及认证信息
 	 */
-	protected static String ENDPOINT;
-
-	/**
-	 * 禅道用户名
-	 */
-	protected static String USER_NAME;
-
-	/**
-	 * 禅道密码
-	 */
-	protected static String PASSWD;
+	protected volatile ZentaoClientContext context;
 
 	/**
 	 * Restful API版本
@@ -52,7 +43,8 @@ public class ZentaoRestClient extends BaseClient {
 	private final ObjectMapper objectMapper = new ObjectMapper();
 
 	public ZentaoRestClient(String url) {
-		ENDPOINT = url;
+		restTemplate = HttpClientUtils.getRestTemplate();
+		context = new ZentaoClientContext(url, null, null);
 	}
 
 	/**
@@ -64,23 +56,31 @@ public class ZentaoRestClient extends BaseClient {
 		if (config == null) {
 			throw new MSPluginException("禅道服务集成配置为空");
 		}
-		ENDPOINT = config.getAddress();
-		USER_NAME = config.getAccount();
-		PASSWD = config.getPassword();
+		context = new ZentaoClientContext(config.getAddress(), config.getAccount(), config.getPassword());
 	}
 
 	/**
-	 * 获取Token
+	 * 获取Token(不经过缓存, 每次请求禅道认证)
 	 *
 	 * @return token
 	 */
 	public String getToken() {
+		return getToken(context);
+	}
+
+	/**
+	 * 使用指定上下文获取Token
+	 *
+	 * @param ctx 客户端上下文
+	 * @return token
+	 */
+	private String getToken(ZentaoClientContext ctx) {
 		ObjectNode jsonObj = objectMapper.createObjectNode();
-		jsonObj.put("account", USER_NAME);
-		jsonObj.put("password", PASSWD);
+		jsonObj.put("account", ctx.getAccount());
+		jsonObj.put("password", ctx.getPassword());
 		ResponseEntity<ZentaoRestTokenResponse> response;
 		try {
-			response = restTemplate.postForEntity(getRestUrl(ZentaoRestApiUrl.GET_TOKEN, null), getJsonHttpEntity(jsonObj), ZentaoRestTokenResponse.class);
+			response = restTemplate.postForEntity(getRestUrl(ctx, ZentaoRestApiUrl.GET_TOKEN, null), getJsonHttpEntity(jsonObj), ZentaoRestTokenResponse.class);
 			if (response.getBody() == null) {
 				throw new MSPluginException("禅道认证失败: 地址错误或未获取到Token");
 			}
@@ -103,7 +103,7 @@ public class ZentaoRestClient extends BaseClient {
 		}
 		ResponseEntity<Map> response;
 		try {
-			response = restTemplate.exchange(getRestUrl(ZentaoRestApiUrl.GET_PRODUCT_OR_PROJECT, type), HttpMethod.GET, getJsonHttpEntityWithToken(StringUtils.EMPTY), Map.class, zentaoKey);
+			response = exchangeWithToken(getRestUrl(ZentaoRestApiUrl.GET_PRODUCT_OR_PROJECT, type), HttpMethod.GET, StringUtils.EMPTY, Map.class, zentaoKey);
 			if (response.getBody() == null || response.getBody().containsKey(ERROR_RESPONSE_KEY)) {
 				throw new MSPluginException("产品或项目不存在!");
 			}
@@ -134,7 +134,7 @@ public class ZentaoRestClient extends BaseClient {
 	public ZentaoBugRestEditResponse add(ZentaoRestBugEditRequest request, String productOrProjectKey) {
 		ResponseEntity<ZentaoBugRestEditResponse> response;
 		try {
-			response = restTemplate.exchange(getRestUrl(ZentaoRestApiUrl.ADD_BUG, null), HttpMethod.POST, getJsonHttpEntityWithToken(PluginUtils.toJSONString(request)), ZentaoBugRestEditResponse.class, productOrProjectKey);
+			response = exchangeWithToken(getRestUrl(ZentaoRestApiUrl.ADD_BUG, null), HttpMethod.POST, PluginUtils.toJSONString(request), ZentaoBugRestEditResponse.class, productOrProjectKey);
 		} catch (Exception e) {
 			throw new MSPluginException(UnicodeConvertUtils.unicodeToCn(e.getMessage()));
 		}
@@ -151,7 +151,7 @@ public class ZentaoRestClient extends BaseClient {
 	public ZentaoBugRestEditResponse update(ZentaoRestBugEditRequest request, String issueKey) {
 		ResponseEntity<ZentaoBugRestEditResponse> response;
 		try {
-			response = restTemplate.exchange(getRestUrl(ZentaoRestApiUrl.GET_OR_UPDATE_OR_DELETE_BUG, null), HttpMethod.PUT, getJsonHttpEntityWithToken(PluginUtils.toJSONString(request)), ZentaoBugRestEditResponse.class, issueKey);
+			response = exchangeWithToken(getRestUrl(ZentaoRestApiUrl.GET_OR_UPDATE_OR_DELETE_BUG, null), HttpMethod.PUT, PluginUtils.toJSONString(request), ZentaoBugRestEditResponse.class, issueKey);
 		} catch (Exception e) {
 			throw new MSPluginException(UnicodeConvertUtils.unicodeToCn(e.getMessage()));
 		}
@@ -167,7 +167,7 @@ public class ZentaoRestClient extends BaseClient {
 	public ZentaoRestBugDetailResponse get(String issueKey) {
 		ResponseEntity<ZentaoRestBugDetailResponse> response;
 		try {
-			response = restTemplate.exchange(getRestUrl(ZentaoRestApiUrl.GET_OR_UPDATE_OR_DELETE_BUG, null), HttpMethod.GET, getJsonHttpEntityWithToken(StringUtils.EMPTY), ZentaoRestBugDetailResponse.class, issueKey);
+			response = exchangeWithToken(getRestUrl(ZentaoRestApiUrl.GET_OR_UPDATE_OR_DELETE_BUG, null), HttpMethod.GET, StringUtils.EMPTY, ZentaoRestBugDetailResponse.class, issueKey);
 			if (response.getBody() == null) {
 				throw new MSPluginException("获取禅道缺陷详情失败!");
 			}
@@ -185,7 +185,7 @@ public class ZentaoRestClient extends BaseClient {
 	public void delete(String issueKey) {
 		ResponseEntity<ZentaoRestMessageResponse> response;
 		try {
-			response = restTemplate.exchange(getRestUrl(ZentaoRestApiUrl.GET_OR_UPDATE_OR_DELETE_BUG, null), HttpMethod.DELETE, getJsonHttpEntityWithToken(StringUtils.EMPTY), ZentaoRestMessageResponse.class, issueKey);
+			response = exchangeWithToken(getRestUrl(ZentaoRestApiUrl.GET_OR_UPDATE_OR_DELETE_BUG, null), HttpMethod.DELETE, StringUtils.EMPTY, ZentaoRestMessageResponse.class, issueKey);
 			if (response.getBody() == null || !StringUtils.equals(response.getBody().getMessage(), SUCCESS_RESPONSE_KEY)) {
 				PluginLogUtils.error("删除禅道缺陷失败!");
 			}
@@ -202,7 +202,27 @@ public class ZentaoRestClient extends BaseClient {
 	public ZentaoRestUserResponse getUsers() {
 		ResponseEntity<ZentaoRestUserResponse> response;
 		try {
-			response = restTemplate.exchange(getRestUrl(ZentaoRestApiUrl.GET_USERS, null), HttpMethod.GET, getJsonHttpEntityWithToken(StringUtils.EMPTY), ZentaoRestUserResponse.class);
+			response = exchangeWithToken(getRestUrl(ZentaoRestApiUrl.GET_USERS, null), HttpMethod.GET, StringUtils.EMPTY, ZentaoRestUserResponse.class);
+			if (response.getBody() == null) {
+				throw new MSPluginException("获取禅道用户列表失败!");
+			}
+		} catch (Exception e) {
+			throw new MSPluginException(UnicodeConvertUtils.unicodeToCn(e.getMessage()));
+		}
+		return response.getBody();
+	}
+
+	/**
+	 * 分页获取禅道用户列表
+	 *
+	 * @param page  页码
+	 * @param limit 每页数量
+	 * @return 用户列表
+	 */
+	public ZentaoRestUserResponse pageUsers(int page, int limit) {
+		ResponseEntity<ZentaoRestUserResponse> response;
+		try {
+			response = exchangeWithToken(getRestUrl(ZentaoRestApiUrl.LIST_USER, null), HttpMethod.GET, StringUtils.EMPTY, ZentaoRestUserResponse.class, page, limit);
 			if (response.getBody() == null) {
 				throw new MSPluginException("获取禅道用户列表失败!");
 			}
@@ -219,7 +239,7 @@ public class ZentaoRestClient extends BaseClient {
 		ObjectNode jsonObj = objectMapper.createObjectNode();
 		jsonObj.put("comment", StringUtils.EMPTY);
 		jsonObj.put("assignedTo", assignedTo);
-		restTemplate.exchange(getRestUrl(ZentaoRestApiUrl.RESOLVE_BUG, null), HttpMethod.POST, getJsonHttpEntityWithToken(PluginUtils.toJSONString(jsonObj)), String.class, zentaoKey);
+		exchangeWithToken(getRestUrl(ZentaoRestApiUrl.RESOLVE_BUG, null), HttpMethod.POST, PluginUtils.toJSONString(jsonObj), String.class, zentaoKey);
 	}
 
 	/**
@@ -228,7 +248,7 @@ public class ZentaoRestClient extends BaseClient {
 	public void closeBug(String zentaoKey) {
 		ObjectNode jsonObj = objectMapper.createObjectNode();
 		jsonObj.put("comment", StringUtils.EMPTY);
-		restTemplate.exchange(getRestUrl(ZentaoRestApiUrl.CLOSE_BUG, null), HttpMethod.POST, getJsonHttpEntityWithToken(PluginUtils.toJSONString(jsonObj)), String.class, zentaoKey);
+		exchangeWithToken(getRestUrl(ZentaoRestApiUrl.CLOSE_BUG, null), HttpMethod.POST, PluginUtils.toJSONString(jsonObj), String.class, zentaoKey);
 	}
 
 	/**
@@ -238,7 +258,7 @@ public class ZentaoRestClient extends BaseClient {
 		ObjectNode jsonObj = objectMapper.createObjectNode();
 		jsonObj.put("comment", StringUtils.EMPTY);
 		jsonObj.put("assignedTo", assignedTo);
-		restTemplate.exchange(getRestUrl(ZentaoRestApiUrl.ACTIVE_BUG, null), HttpMethod.POST, getJsonHttpEntityWithToken(PluginUtils.toJSONString(jsonObj)), String.class, zentaoKey);
+		exchangeWithToken(getRestUrl(ZentaoRestApiUrl.ACTIVE_BUG, null), HttpMethod.POST, PluginUtils.toJSONString(jsonObj), String.class, zentaoKey);
 	}
 
 	/**
@@ -252,7 +272,7 @@ public class ZentaoRestClient extends BaseClient {
 	public ZentaoRestDemandResponse pageDemands(String productOrProjectKey, String type, int page, int limit) {
 		ResponseEntity<ZentaoRestDemandResponse> response;
 		try {
-			response = restTemplate.exchange(getRestUrl(ZentaoRestApiUrl.LIST_DEMAND, type), HttpMethod.GET, getJsonHttpEntityWithToken(StringUtils.EMPTY), ZentaoRestDemandResponse.class, productOrProjectKey, page, limit);
+			response = exchangeWithToken(getRestUrl(ZentaoRestApiUrl.LIST_DEMAND, type), HttpMethod.GET, StringUtils.EMPTY, ZentaoRestDemandResponse.class, productOrProjectKey, page, limit);
 		} catch (Exception e) {
 			throw new MSPluginException(UnicodeConvertUtils.unicodeToCn(e.getMessage()));
 		}
@@ -270,7 +290,7 @@ public class ZentaoRestClient extends BaseClient {
 	public ZentaoRestPlanResponse getProductPlans(String productKey, int page, int limit) {
 		ResponseEntity<ZentaoRestPlanResponse> response;
 		try {
-			response = restTemplate.exchange(getRestUrl(ZentaoRestApiUrl.LIST_PLAN, null), HttpMethod.GET, getJsonHttpEntityWithToken(StringUtils.EMPTY), ZentaoRestPlanResponse.class, productKey, page, limit);
+			response = exchangeWithToken(getRestUrl(ZentaoRestApiUrl.LIST_PLAN, null), HttpMethod.GET, StringUtils.EMPTY, ZentaoRestPlanResponse.class, productKey, page, limit);
 		} catch (Exception e) {
 			throw new MSPluginException(UnicodeConvertUtils.unicodeToCn(e.getMessage()));
 		}
@@ -286,16 +306,39 @@ public class ZentaoRestClient extends BaseClient {
 		}
 	}
 
+	/**
+	 * 获取缓存Key
+	 *
+	 * @return 缓存Key
+	 */
+	public String getCacheKey() {
+		return context.getCacheKey();
+	}
+
+	/**
+	 * 获取当前禅道账号
+	 *
+	 * @return 账号
+	 */
+	public String getAccount() {
+		return context.getAccount();
+	}
+
 	/**
 	 * 获取请求地址
 	 *
 	 * @return 请求地址
 	 */
 	public String getBaseUrl() {
-		if (ENDPOINT.endsWith(END_SUFFIX)) {
-			return ENDPOINT;
+		return getBaseUrl(context);
+	}
+
+	private String getBaseUrl(ZentaoClientContext ctx) {
+		String endpoint = ctx.getEndpoint();
+		if (endpoint.endsWith(END_SUFFIX)) {
+			return endpoint;
 		}
-		return ENDPOINT + END_SUFFIX;
+		return endpoint + END_SUFFIX;
 	}
 
 	/**
@@ -306,7 +349,11 @@ public class ZentaoRestClient extends BaseClient {
 	 * @return Restful请求地址
 	 */
 	private String getRestUrl(String url, String type) {
-		return getBaseUrl() + "api.php/" + API_VERSION + (StringUtils.isEmpty(type) ? StringUtils.EMPTY : "/" + type) + url;
+		return getRestUrl(context, url, type);
+	}
+
+	private String getRestUrl(ZentaoClientContext ctx, String url, String type) {
+		return getBaseUrl(ctx) + "api.php/" + API_VERSION + (StringUtils.isEmpty(type) ? StringUtils.EMPTY : "/" + type) + url;
 	}
 
 	/**
@@ -333,12 +380,48 @@ public class ZentaoRestClient extends BaseClient {
 	/**
 	 * 获取请求参数(token)
 	 *
-	 * @param json Body请求参数
+	 * @param json  Body请求参数
+	 * @param token token
 	 * @return 请求参数
 	 */
-	protected HttpEntity<String> getJsonHttpEntityWithToken(String json) {
+	protected HttpEntity<String> getJsonHttpEntityWithToken(String json, String token) {
 		HttpHeaders header = getHeader();
-		header.add("Token", getToken());
+		header.add("Token", token);
 		return new HttpEntity<>(json, header);
 	}
+
+	/**
+	 * 获取缓存的Token
+	 *
+	 * @param ctx 客户端上下文
+	 * @return token
+	 */
+	protected String getCachedToken(ZentaoClientContext ctx) {
+		return ZentaoRestTokenCache.getToken(ctx.getCacheKey(), () -> getToken(ctx));
+	}
+
+	/**
+	 * 携带Token请求, Token失效(401/403)时刷新一次并重试
+	 *
+	 * @param url          请求地址
+	 * @param method       请求方式
+	 * @param json         Body请求参数
+	 * @param responseType 响应类型
+	 * @param uriVariables 地址参数
+	 * @return 响应内容
+	 */
+	protected <T> ResponseEntity<T> exchangeWithToken(String url, HttpMethod method, String json, Class<T> responseType, Object... uriVariables) {
+		// 同一请求内始终使用同一组认证信息
+		ZentaoClientContext ctx = context;
+		String token = getCachedToken(ctx);
+		try {
+			return restTemplate.exchange(url, method, getJsonHttpEntityWithToken(json, token), responseType, uriVariables);
+		} catch (HttpClientErrorException e) {
+			if (!HttpStatus.UNAUTHORIZED.isSameCodeAs(e.getStatusCode()) && !HttpStatus.FORBIDDEN.isSameCodeAs(e.getStatusCode())) {
+				throw e;
+			}
+			ZentaoRestTokenCache.invalidate(ctx.getCacheKey(), token);
+			return restTemplate.exchange(url, method, getJsonHttpEntityWithToken(json, getCachedToken(ctx)), responseType, uriVariables);
+		}
+	}
 }
@@ -0,0 +1,108 @@
+package io.metersphere.plugin.zentao.client;
+
+import io.metersphere.plugin.sdk.util.PluginLogUtils;
+import io.metersphere.plugin.zentao.constants.ZentaoPluginProperties;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 禅道Restful API Token缓存
+ * 按照{禅道地址, 账号}维度缓存Token, 过期或认证失效后重新获取; 并发请求共享同一次刷新
+ */
+public class ZentaoRestTokenCache {
+
+	private static final Map<String, TokenHolder> TOKEN_CACHE = new ConcurrentHashMap<>();
+
+	/**
+	 * 实际获取Token的次数
+	 */
+	private static final AtomicLong FETCH_COUNT = new AtomicLong();
+
+	/**
+	 * 命中缓存(省去获取Token请求)的次数
+	 */
+	private static final AtomicLong AVOIDED_COUNT = new AtomicLong();
+
+	/**
+	 * 获取Token, 缓存有效时直接返回, 否则加载新Token
+	 *
+	 * @param cacheKey    缓存Key
+	 * @param tokenLoader Token加载方法
+	 * @return token
+	 */
+	public static String getToken(String cacheKey, Supplier<String> tokenLoader) {
+		TokenHolder holder = TOKEN_CACHE.computeIfAbsent(cacheKey, key -> new TokenHolder());
+		String token = holder.validToken();
+		if (token != null) {
+			AVOIDED_COUNT.incrementAndGet();
+			return token;
+		}
+		holder.lock.lock();
+		try {
+			// 等待锁期间其他线程可能已完成刷新
+			token = holder.validToken();
+			if (token != null) {
+				AVOIDED_COUNT.incrementAndGet();
+				return token;
+			}
+			token = tokenLoader.get();
+			holder.expireAt = System.nanoTime() + TimeUnit.SECONDS.toNanos(ZentaoPluginProperties.TOKEN_TTL_SECONDS);
+			holder.token = token;
+			FETCH_COUNT.incrementAndGet();
+			PluginLogUtils.info("Zentao token refreshed, " + getStats());
+			return token;
+		} finally {
+			holder.lock.unlock();
+		}
+	}
+
+	/**
+	 * 使Token失效, 仅当缓存的仍是失效Token时清除, 避免覆盖其他线程已刷新的Token
+	 *
+	 * @param cacheKey   缓存Key
+	 * @param staleToken 失效的Token
+	 */
+	public static void invalidate(String cacheKey, String staleToken) {
+		TokenHolder holder = TOKEN_CACHE.get(cacheKey);
+		if (holder == null) {
+			return;
+		}
+		holder.lock.lock();
+		try {
+			if (StringUtils.equals(holder.token, staleToken)) {
+				holder.token = null;
+			}
+		} finally {
+			holder.lock.unlock();
+		}
+	}
+
+	public static long getFetchCount() {
+		return FETCH_COUNT.get();
+	}
+
+	public static long getAvoidedCount() {
+		return AVOIDED_COUNT.get();
+	}
+
+	public static String getStats() {
+		return "token fetched: " + FETCH_COUNT.get() + ", fetch avoided: " + AVOIDED_COUNT.get();
+	}
+
+	private static class TokenHolder {
+		private final ReentrantLock lock = new ReentrantLock();
+		private volatile String token;
+		private volatile long expireAt;
+
+		private String validToken() {
+			String current = token;
+			return current != null && System.nanoTime() - expireAt < 0 ? current : null;
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package io.metersphere.plugin.zentao.client;
+
+import io.metersphere.plugin.sdk.util.MSPluginException;
+import io.metersphere.plugin.zentao.constants.ZentaoPluginProperties;
+
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 禅道JSON-API会话池
+ * 按照{禅道地址, 账号}维度复用已登录的zentaosid, 借出时不做校验, 由调用方在禅道提示会话过期时重新登录;
+ * 同一账号同时借出的会话数受限, 超出时等待其他调用方归还
+ */
+public class ZentaoSessionPool {
+
+	private static final Map<String, ZentaoSessionPool> POOLS = new ConcurrentHashMap<>();
+
+	private final Semaphore permits;
+
+	/**
+	 * 空闲会话, 最近归还的在队首
+	 */
+	private final Deque<IdleSession> idleSessions = new ConcurrentLinkedDeque<>();
+
+	private ZentaoSessionPool(int size) {
+		this.permits = new Semaphore(size, true);
+	}
+
+	/**
+	 * 获取账号对应的会话池
+	 *
+	 * @param cacheKey 缓存Key
+	 * @return 会话池
+	 */
+	public static ZentaoSessionPool getInstance(String cacheKey) {
+		return POOLS.computeIfAbsent(cacheKey, key -> new ZentaoSessionPool(ZentaoPluginProperties.SESSION_POOL_SIZE));
+	}
+
+	/**
+	 * 借出会话, 没有可用的空闲会话时登录获取新会话
+	 *
+	 * @param login 登录方法
+	 * @return sessionId
+	 */
+	public String borrow(Supplier<String> login) {
+		try {
+			if (!permits.tryAcquire(ZentaoPluginProperties.SESSION_BORROW_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+				throw new MSPluginException("禅道会话繁忙, 请稍后重试");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MSPluginException(e);
+		}
+		try {
+			IdleSession session;
+			while ((session = idleSessions.pollFirst()) != null) {
+				if (!session.isIdleTooLong()) {
+					return session.sessionId;
+				}
+			}
+			return login.get();
+		} catch (RuntimeException e) {
+			permits.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * 归还会话
+	 *
+	 * @param sessionId sessionId
+	 * @param reusable  会话是否可继续使用
+	 */
+	public void giveBack(String sessionId, boolean reusable) {
+		try {
+			if (reusable && sessionId != null) {
+				idleSessions.offerFirst(new IdleSession(sessionId, System.nanoTime()));
+			}
+		} finally {
+			permits.release();
+		}
+	}
+
+	private static class IdleSession {
+		private final String sessionId;
+		private final long lastUsed;
+
+		private IdleSession(String sessionId, long lastUsed) {
+			this.sessionId = sessionId;
+			this.lastUsed = lastUsed;
+		}
+
+		private boolean isIdleTooLong() {
+			return System.nanoTime() - lastUsed > TimeUnit.SECONDS.toNanos(ZentaoPluginProperties.SESSION_MAX_IDLE_SECONDS);
+		}
+	}
+}
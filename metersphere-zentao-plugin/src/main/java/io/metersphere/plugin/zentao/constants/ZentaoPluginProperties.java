@@ -0,0 +1,225 @@
+package io.metersphere.plugin.zentao.constants;
+
+/**
+ * 禅道插件运行参数
+ * 默认值可通过JVM系统属性覆盖, 例如: -Dmetersphere.zentao.token.ttl-seconds=600
+ */
+public class ZentaoPluginProperties {
+
+	private static final String PREFIX = "metersphere.zentao.";
+
+	/**
+	 * Restful API Token缓存时长(秒), 需小于禅道会话过期时间
+	 */
+	public static final long TOKEN_TTL_SECONDS = Long.getLong(PREFIX + "token.ttl-seconds", 1200L);
+
+	/**
+	 * JSON-API 每个账号最多同时持有的会话数
+	 */
+	public static final int SESSION_POOL_SIZE = Integer.getInteger(PREFIX + "session.pool-size", 8);
+
+	/**
+	 * JSON-API 会话最长空闲时间(秒), 超过后直接丢弃重新登录, 需小于禅道会话过期时间
+	 */
+	public static final long SESSION_MAX_IDLE_SECONDS = Long.getLong(PREFIX + "session.max-idle-seconds", 1200L);
+
+	/**
+	 * 等待可用会话的最长时间(秒)
+	 */
+	public static final long SESSION_BORROW_TIMEOUT_SECONDS = Long.getLong(PREFIX + "session.borrow-timeout-seconds", 60L);
+
+	/**
+	 * 同步缺陷时并发获取缺陷详情的最大线程数, 1为顺序同步
+	 */
+	public static final int SYNC_BUG_PARALLELISM = Integer.getInteger(PREFIX + "sync.parallelism", 8);
+
+	/**
+	 * 同步缺陷数量达到该值时, 改为分页查询缺陷列表批量匹配, 不再逐个查询缺陷详情
+	 */
+	public static final int SYNC_BUG_BATCH_THRESHOLD = Integer.getInteger(PREFIX + "sync.batch-threshold", 20);
+
+	/**
+	 * 批量同步时查询缺陷列表的分页大小
+	 */
+	public static final int SYNC_BUG_PAGE_SIZE = Integer.getInteger(PREFIX + "sync.page-size", 200);
+
+	/**
+	 * 全量同步缺陷时预取的页数, 0为顺序查询
+	 */
+	public static final int SYNC_PREFETCH_PAGES = Integer.getInteger(PREFIX + "sync.prefetch-pages", 1);
+
+	/**
+	 * 需求列表缓存过期时间(秒)
+	 */
+	public static final long DEMAND_CACHE_TTL_SECONDS = Long.getLong(PREFIX + "demand-cache.ttl-seconds", 300L);
+
+	/**
+	 * 需求列表缓存过期后仍可返回旧数据(同时后台刷新)的最长时间(秒)
+	 */
+	public static final long DEMAND_CACHE_MAX_STALE_SECONDS = Long.getLong(PREFIX + "demand-cache.max-stale-seconds", 3600L);
+
+	/**
+	 * 需求列表缓存最多缓存的项目数
+	 */
+	public static final int DEMAND_CACHE_MAX_ENTRIES = Integer.getInteger(PREFIX + "demand-cache.max-entries", 200);
+
+	/**
+	 * 需求列表缓存最大估算内存(字节)
+	 */
+	public static final long DEMAND_CACHE_MAX_BYTES = Long.getLong(PREFIX + "demand-cache.max-bytes", 64L * 1024 * 1024);
+
+	/**
+	 * 是否开启增量同步, 开启后全量同步只查询上一次成功同步之后修改或新建的缺陷(进程重启后首次同步仍为全量)
+	 */
+	public static final boolean SYNC_DELTA_ENABLED = Boolean.getBoolean(PREFIX + "sync.delta-enabled");
+
+	/**
+	 * 增量同步查询时间向前重叠的秒数
+	 */
+	public static final long SYNC_DELTA_OVERLAP_SECONDS = Long.getLong(PREFIX + "sync.delta-overlap-seconds", 300L);
+
+	/**
+	 * 用户目录刷新间隔(秒), 到期后访问时后台刷新
+	 */
+	public static final long USER_DIRECTORY_TTL_SECONDS = Long.getLong(PREFIX + "user-directory.ttl-seconds", 600L);
+
+	/**
+	 * 用户目录刷新失败时仍可使用旧数据的最长时间(秒)
+	 */
+	public static final long USER_DIRECTORY_MAX_STALE_SECONDS = Long.getLong(PREFIX + "user-directory.max-stale-seconds", 86400L);
+
+	/**
+	 * 加载用户目录时的分页大小
+	 */
+	public static final int USER_DIRECTORY_PAGE_SIZE = Integer.getInteger(PREFIX + "user-directory.page-size", 500);
+
+	/**
+	 * 用户下拉选项最多返回的数量, 未输入搜索词时只返回前N个用户(当前禅道账号始终返回), 其余用户需搜索
+	 */
+	public static final int USER_OPTION_LIMIT = Integer.getInteger(PREFIX + "user-directory.option-limit", 100);
+
+	/**
+	 * 产品计划表头缓存过期时间(秒)
+	 */
+	public static final long PLAN_CACHE_TTL_SECONDS = Long.getLong(PREFIX + "plan-cache.ttl-seconds", 300L);
+
+	/**
+	 * 产品计划表头缓存过期后仍可返回旧数据(同时后台刷新)的最长时间(秒)
+	 */
+	public static final long PLAN_CACHE_MAX_STALE_SECONDS = Long.getLong(PREFIX + "plan-cache.max-stale-seconds", 3600L);
+
+	/**
+	 * 产品计划表头缓存最多缓存的产品数
+	 */
+	public static final int PLAN_CACHE_MAX_ENTRIES = Integer.getInteger(PREFIX + "plan-cache.max-entries", 200);
+
+	/**
+	 * 产品计划表头缓存最大估算内存(字节)
+	 */
+	public static final long PLAN_CACHE_MAX_BYTES = Long.getLong(PREFIX + "plan-cache.max-bytes", 16L * 1024 * 1024);
+
+	/**
+	 * 同步富文本至禅道时并发上传图片的最大线程数, 1为顺序上传
+	 */
+	public static final int RICH_TEXT_UPLOAD_PARALLELISM = Integer.getInteger(PREFIX + "rich-text.upload-parallelism", 4);
+
+	/**
+	 * 缓存已上传附件内容摘要的最大数量, 用于同步附件时跳过未变化的附件
+	 */
+	public static final int ATTACHMENT_DIGEST_CACHE_SIZE = Integer.getInteger(PREFIX + "attachment.digest-cache-size", 10000);
+
+	/**
+	 * 同步附件时下载禅道已有附件比较内容的大小上限(字节), 超过且未记录摘要时不下载比较, 直接上传
+	 */
+	public static final long ATTACHMENT_VERIFY_MAX_FILE_BYTES = Long.getLong(PREFIX + "attachment.verify-max-file-bytes", 20L * 1024 * 1024);
+
+	/**
+	 * 是否先将附件下载至本地临时文件再交给调用方(尽快释放连接, 中断时断点续传), 关闭时直接传递网络流
+	 */
+	public static final boolean ATTACHMENT_SPOOL_ENABLED = Boolean.parseBoolean(System.getProperty(PREFIX + "attachment.spool-enabled", "true"));
+
+	/**
+	 * 附件下载中断后的最大重试次数
+	 */
+	public static final int ATTACHMENT_DOWNLOAD_MAX_RETRIES = Integer.getInteger(PREFIX + "attachment.download-max-retries", 3);
+
+	/**
+	 * 是否在同步缺陷时后台预取附件至本地缓存
+	 */
+	public static final boolean ATTACHMENT_PREFETCH_ENABLED = Boolean.getBoolean(PREFIX + "attachment.prefetch-enabled");
+
+	/**
+	 * 附件预取的最大并发下载数
+	 */
+	public static final int ATTACHMENT_PREFETCH_PARALLELISM = Integer.getInteger(PREFIX + "attachment.prefetch-parallelism", 4);
+
+	/**
+	 * 单个附件预取的超时时间(秒)
+	 */
+	public static final long ATTACHMENT_PREFETCH_TIMEOUT_SECONDS = Long.getLong(PREFIX + "attachment.prefetch-timeout-seconds", 120L);
+
+	/**
+	 * 附件缓存的总大小上限(字节)
+	 */
+	public static final long ATTACHMENT_CACHE_MAX_BYTES = Long.getLong(PREFIX + "attachment.cache-max-bytes", 1024L * 1024 * 1024);
+
+	/**
+	 * 单个附件缓存的大小上限(字节), 超过时不缓存
+	 */
+	public static final long ATTACHMENT_CACHE_MAX_FILE_BYTES = Long.getLong(PREFIX + "attachment.cache-max-file-bytes", 100L * 1024 * 1024);
+
+	/**
+	 * 缺陷状态流转的最大并发数
+	 */
+	public static final int TRANSITION_PARALLELISM = Integer.getInteger(PREFIX + "transition.parallelism", 8);
+
+	/**
+	 * 缺陷状态流转最大排队数, 超过后拒绝新增/修改缺陷
+	 */
+	public static final int TRANSITION_MAX_PENDING = Integer.getInteger(PREFIX + "transition.max-pending", 1000);
+
+	/**
+	 * 缺陷状态流转失败后的最大重试次数
+	 */
+	public static final int TRANSITION_MAX_RETRIES = Integer.getInteger(PREFIX + "transition.max-retries", 3);
+
+	/**
+	 * 缺陷状态流转首次重试等待时间(毫秒), 之后逐次翻倍
+	 */
+	public static final long TRANSITION_RETRY_BACKOFF_MILLIS = Long.getLong(PREFIX + "transition.retry-backoff-millis", 1000L);
+
+	/**
+	 * HTTP连接池最大连接数
+	 */
+	public static final int HTTP_MAX_CONNECTIONS = Integer.getInteger(PREFIX + "http.max-connections", 200);
+
+	/**
+	 * HTTP连接池每个主机的最大连接数
+	 */
+	public static final int HTTP_MAX_CONNECTIONS_PER_ROUTE = Integer.getInteger(PREFIX + "http.max-connections-per-route", 50);
+
+	/**
+	 * HTTP建立连接超时时间(毫秒)
+	 */
+	public static final long HTTP_CONNECT_TIMEOUT_MILLIS = Long.getLong(PREFIX + "http.connect-timeout-millis", 10000L);
+
+	/**
+	 * HTTP读取超时时间(毫秒), 两次读取数据之间的最大间隔
+	 */
+	public static final long HTTP_READ_TIMEOUT_MILLIS = Long.getLong(PREFIX + "http.read-timeout-millis", 60000L);
+
+	/**
+	 * 从HTTP连接池获取连接的超时时间(毫秒)
+	 */
+	public static final long HTTP_CONNECTION_REQUEST_TIMEOUT_MILLIS = Long.getLong(PREFIX + "http.connection-request-timeout-millis", 30000L);
+
+	/**
+	 * HTTP连接空闲超过该时间(秒)后关闭
+	 */
+	public static final long HTTP_IDLE_EVICT_SECONDS = Long.getLong(PREFIX + "http.idle-evict-seconds", 60L);
+
+	/**
+	 * DNS解析结果缓存时间(秒)
+	 */
+	public static final long HTTP_DNS_CACHE_SECONDS = Long.getLong(PREFIX + "http.dns-cache-seconds", 60L);
+}
@@ -12,6 +12,7 @@ public class ZentaoJsonApiUrl {
     private String createMetaData;
     private String bugUpdate;
     private String bugList;
+    private String bugListOrderBy;
     private String bugDelete;
     private String bugGet;
     private String storyGet;
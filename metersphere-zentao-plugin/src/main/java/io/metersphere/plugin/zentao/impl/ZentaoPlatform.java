@@ -20,6 +20,7 @@ import io.metersphere.plugin.zentao.client.ZentaoClient;
 import io.metersphere.plugin.zentao.client.ZentaoFactory;
 import io.metersphere.plugin.zentao.client.ZentaoRestClient;
 import io.metersphere.plugin.zentao.constants.ZentaoDemandCustomField;
+import io.metersphere.plugin.zentao.constants.ZentaoPluginProperties;
 import io.metersphere.plugin.zentao.domain.ZentaoIntegrationConfig;
 import io.metersphere.plugin.zentao.domain.ZentaoPlatformUserInfo;
 import io.metersphere.plugin.zentao.domain.ZentaoProjectConfig;
@@ -27,19 +28,33 @@ import io.metersphere.plugin.zentao.domain.request.rest.ZentaoRestBugEditRequest
 import io.metersphere.plugin.zentao.domain.response.json.ZentaoBugResponse;
 import io.metersphere.plugin.zentao.domain.response.rest.*;
 import io.metersphere.plugin.zentao.enums.ZentaoBugPlatformStatus;
+import io.metersphere.plugin.zentao.utils.AttachmentCache;
+import io.metersphere.plugin.zentao.utils.BugSyncWatermark;
+import io.metersphere.plugin.zentao.utils.ConcurrentTaskUtils;
+import io.metersphere.plugin.zentao.utils.DemandSearchIndex;
+import io.metersphere.plugin.zentao.utils.FileDigestUtils;
+import io.metersphere.plugin.zentao.utils.KeyedSerialExecutor;
+import io.metersphere.plugin.zentao.utils.PagePrefetchPipeline;
+import io.metersphere.plugin.zentao.utils.TtlCache;
+import io.metersphere.plugin.zentao.utils.UserDirectory;
+import io.metersphere.plugin.zentao.utils.ZentaoRichTextConverter;
 import org.apache.commons.lang3.SerializationUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.pf4j.Extension;
 import org.springframework.util.CollectionUtils;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.function.Consumer;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -54,6 +69,47 @@ public class ZentaoPlatform extends AbstractPlatform {
 
 	protected ZentaoProjectConfig projectConfig;
 
+	/**
+	 * 用户目录, 缓存Key {禅道地址}, 地址数量有限, 不限制内存
+	 */
+	private static final TtlCache<UserDirectory> USER_DIRECTORY_CACHE = new TtlCache<>("zentao user directory", ZentaoPluginProperties.USER_DIRECTORY_TTL_SECONDS,
+			ZentaoPluginProperties.USER_DIRECTORY_MAX_STALE_SECONDS, 64, Long.MAX_VALUE, UserDirectory::estimateBytes);
+
+	/**
+	 * 产品计划表头缓存, 缓存序列化后的下拉选项, 缓存Key {禅道地址, 账号, 产品}
+	 */
+	private static final TtlCache<String> PLAN_OPTION_CACHE = new TtlCache<>("zentao plan option cache", ZentaoPluginProperties.PLAN_CACHE_TTL_SECONDS,
+			ZentaoPluginProperties.PLAN_CACHE_MAX_STALE_SECONDS, ZentaoPluginProperties.PLAN_CACHE_MAX_ENTRIES, ZentaoPluginProperties.PLAN_CACHE_MAX_BYTES, options -> 64L + 2L * options.length());
+
+	/**
+	 * 本插件上传的附件内容摘要 {禅道地址|文件ID => SHA-256}, 按最近访问淘汰
+	 */
+	private static final Map<String, String> ATTACHMENT_DIGESTS = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+			return size() > ZentaoPluginProperties.ATTACHMENT_DIGEST_CACHE_SIZE;
+		}
+	});
+
+	/**
+	 * 同步缺陷时预取的附件, 未开启预取时为空
+	 */
+	private static final AttachmentCache ATTACHMENT_CACHE = ZentaoPluginProperties.ATTACHMENT_PREFETCH_ENABLED ? new AttachmentCache("zentao-attachment-cache",
+			ZentaoPluginProperties.ATTACHMENT_CACHE_MAX_BYTES, ZentaoPluginProperties.ATTACHMENT_CACHE_MAX_FILE_BYTES,
+			ZentaoPluginProperties.ATTACHMENT_PREFETCH_TIMEOUT_SECONDS, ZentaoPluginProperties.ATTACHMENT_PREFETCH_PARALLELISM) : null;
+
+	/**
+	 * 缺陷状态流转执行器, 插件内共享
+	 */
+	private static final KeyedSerialExecutor TRANSITION_EXECUTOR = new KeyedSerialExecutor("zentao status transition", ZentaoPluginProperties.TRANSITION_PARALLELISM,
+			ZentaoPluginProperties.TRANSITION_MAX_PENDING, ZentaoPluginProperties.TRANSITION_MAX_RETRIES, ZentaoPluginProperties.TRANSITION_RETRY_BACKOFF_MILLIS);
+
+	/**
+	 * 项目需求缓存, 缓存的需求为只读对象
+	 */
+	private static final TtlCache<DemandSnapshot> DEMAND_CACHE = new TtlCache<>("zentao demand cache", ZentaoPluginProperties.DEMAND_CACHE_TTL_SECONDS,
+			ZentaoPluginProperties.DEMAND_CACHE_MAX_STALE_SECONDS, ZentaoPluginProperties.DEMAND_CACHE_MAX_ENTRIES, ZentaoPluginProperties.DEMAND_CACHE_MAX_BYTES, DemandSnapshot::estimateBytes);
+
 	protected SimpleDateFormat sdfDateTime = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
 
 	protected static final String DATE_PREFIX = "0000-00-00";
@@ -62,6 +118,8 @@ public class ZentaoPlatform extends AbstractPlatform {
 
 	protected static final String ZENTAO_RICH_TEXT_IMG_SRC_PREFIX = "/file-read-";
 
+	private static final ZentaoRichTextConverter RICH_TEXT_CONVERTER = new ZentaoRichTextConverter(MS_RICH_TEXT_PREVIEW_SRC_PREFIX, ZENTAO_RICH_TEXT_IMG_SRC_PREFIX);
+
 	public ZentaoPlatform(PlatformRequest request) {
 		super(request);
 		ZentaoIntegrationConfig zentaoConfig = getIntegrationConfig(request.getIntegrationConfig(), ZentaoIntegrationConfig.class);
@@ -103,6 +161,8 @@ public class ZentaoPlatform extends AbstractPlatform {
 		try {
 			ZentaoProjectConfig projectConfig = getProjectConfig(projectConfigStr);
 			zentaoRestClient.validateProject(projectConfig.getZentaoKey(), projectConfig.getType());
+			// 项目配置变更后重新加载产品计划
+			PLAN_OPTION_CACHE.invalidate(getPlanOptionCacheKey(projectConfig.getZentaoKey()));
 		} catch (Exception e) {
 			throw new MSPluginException(e.getMessage());
 		}
@@ -294,18 +354,24 @@ public class ZentaoPlatform extends AbstractPlatform {
 			// 项目型项目, 需设置所属项目
 			editRequest.setProject(projectConfig.getZentaoKey());
 		}
-		ZentaoBugRestEditResponse zentaoBug = zentaoRestClient.add(editRequest, projectConfig.getZentaoKey());
-		if (zentaoBug != null && StringUtils.isNotBlank(zentaoBug.getId())) {
-			platformBug.setPlatformBugKey(zentaoBug.getId());
-			platformBug.setPlatformStatus(statusField.getValue().toString());
-		} else {
-			throw new MSPluginException("创建禅道缺陷失败!");
+		// 创建缺陷前预留状态流转的排队位置, 排队已满时拒绝, 保证缺陷创建后状态流转一定能提交
+		TRANSITION_EXECUTOR.reserve();
+		ZentaoBugRestEditResponse zentaoBug;
+		try {
+			zentaoBug = zentaoRestClient.add(editRequest, projectConfig.getZentaoKey());
+			if (zentaoBug != null && StringUtils.isNotBlank(zentaoBug.getId())) {
+				platformBug.setPlatformBugKey(zentaoBug.getId());
+				platformBug.setPlatformStatus(statusField.getValue().toString());
+			} else {
+				throw new MSPluginException("创建禅道缺陷失败!");
+			}
+		} catch (RuntimeException e) {
+			TRANSITION_EXECUTOR.release();
+			throw e;
 		}
 
-		new Thread(() -> {
-			// transition zentao bug status
-			transitionStatus(statusField, zentaoBug.getId(), editRequest.getAssignedTo());
-		}).start();
+		// transition zentao bug status
+		submitTransition(statusField, zentaoBug.getId(), editRequest.getAssignedTo());
 
 		return platformBug;
 	}
@@ -328,14 +394,19 @@ public class ZentaoPlatform extends AbstractPlatform {
 		// set param
 		ZentaoRestBugEditRequest editParam = buildUpdateParam(request, platformBug);
 
-		ZentaoBugRestEditResponse zentaoBug = zentaoRestClient.update(editParam, request.getPlatformBugId());
-		platformBug.setPlatformBugKey(zentaoBug.getId());
-		// transition zentao bug status
-		platformBug.setPlatformStatus(statusField.getValue().toString());
+		TRANSITION_EXECUTOR.reserve();
+		ZentaoBugRestEditResponse zentaoBug;
+		try {
+			zentaoBug = zentaoRestClient.update(editParam, request.getPlatformBugId());
+			platformBug.setPlatformBugKey(zentaoBug.getId());
+			// transition zentao bug status
+			platformBug.setPlatformStatus(statusField.getValue().toString());
+		} catch (RuntimeException e) {
+			TRANSITION_EXECUTOR.release();
+			throw e;
+		}
 
-		new Thread(() -> {
-			transitionStatus(statusField, zentaoBug.getId(), editParam.getAssignedTo());
-		}).start();
+		submitTransition(statusField, zentaoBug.getId(), editParam.getAssignedTo());
 		return platformBug;
 	}
 
@@ -370,8 +441,8 @@ public class ZentaoPlatform extends AbstractPlatform {
 		String syncType = request.getSyncType();
 		File file = request.getFile();
 		if (StringUtils.equals(SyncAttachmentType.UPLOAD.syncOperateType(), syncType)) {
-			// upload attachment
-			zentaoClient.uploadAttachment("bug", request.getPlatformKey(), file);
+			// upload attachment, skip if already exists
+			uploadAttachmentIfAbsent(request.getPlatformKey(), file);
 		} else if (StringUtils.equals(SyncAttachmentType.DELETE.syncOperateType(), syncType)) {
 			// delete attachment
 			ZentaoRestBugDetailResponse response = zentaoRestClient.get(request.getPlatformKey());
@@ -390,6 +461,85 @@ public class ZentaoPlatform extends AbstractPlatform {
 		}
 	}
 
+	/**
+	 * 上传附件至禅道缺陷, 缺陷中已存在相同附件时跳过
+	 * 以文件名及大小匹配已有附件, 再比较内容摘要; 没有记录摘要的附件(重启后、被淘汰或在禅道中上传)下载后计算摘要,
+	 * 超过{@link ZentaoPluginProperties#ATTACHMENT_VERIFY_MAX_FILE_BYTES}的不下载, 直接上传
+	 *
+	 * @param platformKey 禅道缺陷ID
+	 * @param file        附件
+	 */
+	private void uploadAttachmentIfAbsent(String platformKey, File file) {
+		String digest = null;
+		ZentaoRestBugDetailResponse response = zentaoRestClient.get(platformKey);
+		if (response.getFiles() instanceof Map<?, ?> zenFiles) {
+			for (Object zenFile : zenFiles.values()) {
+				if (!(zenFile instanceof Map<?, ?> zenFileMap) || !StringUtils.equals(file.getName(), Objects.toString(zenFileMap.get("title"), null))
+						|| !StringUtils.equals(String.valueOf(file.length()), Objects.toString(zenFileMap.get("size"), null))) {
+					continue;
+				}
+				String fileId = Objects.toString(zenFileMap.get("id"), null);
+				String uploadedDigest = getRemoteAttachmentDigest(fileId, file.length());
+				if (uploadedDigest == null) {
+					continue;
+				}
+				if (digest == null) {
+					digest = FileDigestUtils.sha256Hex(file);
+				}
+				if (StringUtils.equals(uploadedDigest, digest)) {
+					PluginLogUtils.info("zentao bug [" + platformKey + "] attachment [" + file.getName() + "] already exists as file [" + fileId + "], skip upload");
+					return;
+				}
+			}
+		}
+		String fileId = zentaoClient.uploadAttachment("bug", platformKey, file);
+		ATTACHMENT_DIGESTS.put(getAttachmentDigestKey(fileId), digest != null ? digest : FileDigestUtils.sha256Hex(file));
+		PluginLogUtils.info("zentao bug [" + platformKey + "] attachment [" + file.getName() + "] uploaded as file [" + fileId + "], size: " + file.length());
+	}
+
+	/**
+	 * 获取禅道附件的内容摘要, 未记录时下载附件计算
+	 *
+	 * @param fileId 禅道文件ID
+	 * @param size   附件大小
+	 * @return 摘要, 附件过大或下载失败时返回空
+	 */
+	private String getRemoteAttachmentDigest(String fileId, long size) {
+		String digestKey = getAttachmentDigestKey(fileId);
+		String digest = ATTACHMENT_DIGESTS.get(digestKey);
+		if (digest != null) {
+			return digest;
+		}
+		if (size > ZentaoPluginProperties.ATTACHMENT_VERIFY_MAX_FILE_BYTES) {
+			PluginLogUtils.info("zentao file [" + fileId + "] size " + size + " exceeds verify limit, skip digest");
+			return null;
+		}
+		Path tempFile = null;
+		try {
+			// 实际内容超过上限时中止下载
+			tempFile = Files.createTempFile("zentao-file-digest-", ".tmp");
+			zentaoClient.downloadAttachment(fileId, tempFile, ZentaoPluginProperties.ATTACHMENT_VERIFY_MAX_FILE_BYTES);
+			String remoteDigest = FileDigestUtils.sha256Hex(tempFile.toFile());
+			ATTACHMENT_DIGESTS.put(digestKey, remoteDigest);
+			return remoteDigest;
+		} catch (Exception e) {
+			PluginLogUtils.error("get zentao file [" + fileId + "] digest error: " + e.getMessage());
+			return null;
+		} finally {
+			if (tempFile != null) {
+				try {
+					Files.deleteIfExists(tempFile);
+				} catch (IOException e) {
+					PluginLogUtils.error("delete temp file [" + tempFile + "] error: " + e.getMessage());
+				}
+			}
+		}
+	}
+
+	private String getAttachmentDigestKey(String fileId) {
+		return zentaoRestClient.getBaseUrl() + "|" + fileId;
+	}
+
 	/**
 	 * 同步缺陷
 	 *
@@ -400,20 +550,90 @@ public class ZentaoPlatform extends AbstractPlatform {
 	public SyncBugResult syncBugs(SyncBugRequest request) {
 		SyncBugResult syncResult = new SyncBugResult();
 		List<PlatformBugDTO> bugs = request.getBugs();
-		bugs.forEach(bug -> {
-			Map<String, Object> zenBugInfo = zentaoClient.getBugById(bug.getPlatformBugId());
-			if (!StringUtils.equals(zenBugInfo.get("deleted").toString(), "1")) {
-				syncZentaoFieldToMsBug(bug, zenBugInfo, false);
-				parseAttachmentOrBuildToMsBug(syncResult, bug);
-				syncResult.getUpdateBug().add(bug);
-			} else {
-				// not found, delete it
-				syncResult.getDeleteBugIds().add(bug.getId());
+		Function<PlatformBugDTO, SyncBugResult> syncFunc = this::syncBug;
+		if (bugs.size() >= ZentaoPluginProperties.SYNC_BUG_BATCH_THRESHOLD && StringUtils.isNotBlank(request.getProjectConfig())) {
+			projectConfig = getProjectConfig(request.getProjectConfig());
+			// 缺陷列表只能按产品查询, 项目配置时逐个查询详情
+			if (StringUtils.equals(projectConfig.getType(), "products")) {
+				// batch mode: query bug list once, only hydrate attachment and build by detail api
+				validateProjectKey();
+				Map<String, Map<String, Object>> listBugMap = getBugsFromList(bugs.stream().map(PlatformBugDTO::getPlatformBugId).collect(Collectors.toSet()));
+				// 列表中不存在的缺陷(已删除或移至其他产品), 查询详情确认
+				syncFunc = bug -> listBugMap.containsKey(bug.getPlatformBugId()) ? syncBug(bug, listBugMap.get(bug.getPlatformBugId())) : syncBug(bug);
 			}
+		}
+		// hydrate bugs concurrently, merge results in request order
+		List<SyncBugResult> bugResults = ConcurrentTaskUtils.mapOrdered(bugs, ZentaoPluginProperties.SYNC_BUG_PARALLELISM, syncFunc, (bug, e) -> {
+			// 单个缺陷同步失败时跳过, 保留MS中的缺陷, 不影响其他缺陷同步
+			PluginLogUtils.error("sync zentao bug [" + bug.getPlatformBugId() + "] error: " + e.getMessage());
+			return new SyncBugResult();
+		});
+		bugResults.forEach(bugResult -> {
+			syncResult.getUpdateBug().addAll(bugResult.getUpdateBug());
+			syncResult.getDeleteBugIds().addAll(bugResult.getDeleteBugIds());
+			syncResult.getAttachmentMap().putAll(bugResult.getAttachmentMap());
 		});
 		return syncResult;
 	}
 
+	/**
+	 * 同步单个缺陷
+	 *
+	 * @param bug 缺陷
+	 * @return 单个缺陷的同步结果
+	 */
+	private SyncBugResult syncBug(PlatformBugDTO bug) {
+		Map<String, Object> zenBugInfo = zentaoClient.getBugById(bug.getPlatformBugId());
+		return syncBug(bug, StringUtils.equals(zenBugInfo.get("deleted").toString(), "1") ? null : zenBugInfo);
+	}
+
+	/**
+	 * 同步单个缺陷
+	 *
+	 * @param bug        缺陷
+	 * @param zenBugInfo 禅道缺陷, 为空时表示缺陷已删除
+	 * @return 单个缺陷的同步结果
+	 */
+	private SyncBugResult syncBug(PlatformBugDTO bug, Map<String, Object> zenBugInfo) {
+		SyncBugResult bugResult = new SyncBugResult();
+		if (zenBugInfo != null) {
+			syncZentaoFieldToMsBug(bug, zenBugInfo, false);
+			parseAttachmentOrBuildToMsBug(bugResult, bug);
+			bugResult.getUpdateBug().add(bug);
+		} else {
+			// not found, delete it
+			bugResult.getDeleteBugIds().add(bug.getId());
+		}
+		return bugResult;
+	}
+
+	/**
+	 * 分页查询项目缺陷列表, 获取需要同步的缺陷; 全部找到后不再继续查询
+	 *
+	 * @param bugIds 需要同步的缺陷ID
+	 * @return 缺陷ID与禅道缺陷的映射, 不包含列表中不存在的缺陷
+	 */
+	private Map<String, Map<String, Object>> getBugsFromList(Set<String> bugIds) {
+		Map<String, Map<String, Object>> bugMap = new HashMap<>(bugIds.size());
+		int pageNum = 1, pageSize = ZentaoPluginProperties.SYNC_BUG_PAGE_SIZE, pageTotal;
+		do {
+			Map<String, Object> bugResponseMap = zentaoClient.getBugsByProjectId(pageNum, pageSize, projectConfig.getZentaoKey());
+			for (Object bugObj : (List<?>) bugResponseMap.get("bugs")) {
+				// noinspection unchecked
+				Map<String, Object> zenBugInfo = (Map<String, Object>) bugObj;
+				String bugId = zenBugInfo.get("id").toString();
+				if (bugIds.contains(bugId)) {
+					bugMap.put(bugId, zenBugInfo);
+				}
+			}
+			// noinspection unchecked
+			Map<String, Object> pagerMap = (Map<String, Object>) bugResponseMap.get("pager");
+			pageTotal = Integer.parseInt(pagerMap.get("pageTotal").toString());
+			pageNum++;
+		} while (bugMap.size() < bugIds.size() && pageNum <= pageTotal);
+		return bugMap;
+	}
+
 	/**
 	 * 同步缺陷(全量)
 	 *
@@ -425,56 +645,102 @@ public class ZentaoPlatform extends AbstractPlatform {
 		projectConfig = getProjectConfig(request.getProjectConfig());
 		validateProjectKey();
 
-		// prepare page param
-		int pageNum = 0, pageSize = 200, currentSize;
+		// delta sync: only query bugs edited or opened since last successful sync
+		BugSyncWatermark watermark = new BugSyncWatermark(zentaoClient.getCacheKey() + "|" + projectConfig.getZentaoKey());
 		try {
-			do {
-				// prepare post process func param
-				List<PlatformBugDTO> needSyncBugs = new ArrayList<>();
-				SyncBugResult syncBugResult = new SyncBugResult();
-
-				// query zentao bug by page
-				Map<String, Object> bugResponseMap = zentaoClient.getBugsByProjectId(pageNum, pageSize, projectConfig.getZentaoKey());
-				List<?> zentaoBugs = (List<?>) bugResponseMap.get("bugs");
-				currentSize = zentaoBugs.size();
-				zentaoBugs = filterBySyncCondition(zentaoBugs, request);
-				if (!CollectionUtils.isEmpty(zentaoBugs)) {
-					for (Object bugObj : zentaoBugs) {
-						// transfer zentao bug field to ms
-						// noinspection unchecked
-						Map<String, Object> zenBugInfo = (Map<String, Object>) bugObj;
-						PlatformBugDTO bug = new PlatformBugDTO();
-						bug.setId(UUID.randomUUID().toString());
-						bug.setPlatformBugId(zenBugInfo.get("id").toString());
-						syncZentaoFieldToMsBug(bug, zenBugInfo, true);
-						// handle attachment
-						parseAttachmentOrBuildToMsBug(syncBugResult, bug);
-						needSyncBugs.add(bug);
-					}
-				}
-
-				// set post process func param
-				// common sync post param {syncBugs: all need sync bugs, attachmentMap: all bug attachment}
-				SyncPostParamRequest syncPostParamRequest = new SyncPostParamRequest();
-				syncPostParamRequest.setNeedSyncBugs(needSyncBugs);
-				syncPostParamRequest.setAttachmentMap(syncBugResult.getAttachmentMap());
-				request.getSyncPostProcessFunc().accept(syncPostParamRequest);
-
-				// next page
-				pageNum++;
-				// noinspection unchecked
-				Map<String, Object> pagerMap = (Map<String, Object>) bugResponseMap.get("pager");
-				if (pageNum > (Integer) (pagerMap).get("pageTotal")) {
-					// if page num > page total, break loop; avoid loop forever
-					break;
-				}
-			} while (currentSize >= pageSize);
+			if (watermark.isDelta()) {
+				PluginLogUtils.info("zentao delta sync bugs modified since " + watermark.getSince());
+				// 从未编辑过的缺陷没有修改时间, 按修改时间倒序时排在最后, 需再按创建时间倒序查询一次
+				Set<String> syncedBugIds = new HashSet<>();
+				syncBugPages(request, watermark, "lastEditedDate", syncedBugIds);
+				syncBugPages(request, watermark, "openedDate", syncedBugIds);
+			} else {
+				syncBugPages(request, watermark, null, null);
+			}
+			// 按创建时间过滤的同步跳过了部分缺陷, 不更新水位线
+			if (request.getPre() == null && request.getCreateTime() == null) {
+				watermark.commit();
+			}
 		} catch (Exception e) {
 			PluginLogUtils.error(e);
 			throw new MSPluginException(e);
 		}
 	}
 
+	/**
+	 * 分页同步缺陷, 查询下一页的同时处理当前页
+	 *
+	 * @param request      同步全量缺陷请求参数
+	 * @param watermark    增量同步水位线
+	 * @param timeField    增量同步时按该时间字段倒序查询, 遇到早于水位线的缺陷后停止; 为空时查询全部缺陷
+	 * @param syncedBugIds 增量同步时已同步的缺陷ID
+	 */
+	private void syncBugPages(SyncAllBugRequest request, BugSyncWatermark watermark, String timeField, Set<String> syncedBugIds) {
+		int pageSize = 200;
+		PagePrefetchPipeline<Map<String, Object>> pipeline = new PagePrefetchPipeline<>("zentao sync all bugs", ZentaoPluginProperties.SYNC_PREFETCH_PAGES,
+				pageNum -> timeField == null ? zentaoClient.getBugsByProjectId(pageNum, pageSize, projectConfig.getZentaoKey())
+						: zentaoClient.getBugsByProjectId(pageNum, pageSize, projectConfig.getZentaoKey(), timeField + "_desc"), (pageNum, bugResponseMap) -> {
+					// noinspection unchecked
+					Map<String, Object> pagerMap = (Map<String, Object>) bugResponseMap.get("pager");
+					List<?> zentaoBugs = (List<?>) bugResponseMap.get("bugs");
+					// if page num > page total, break loop; avoid loop forever
+					return zentaoBugs.size() >= pageSize && pageNum + 1 <= (Integer) (pagerMap).get("pageTotal")
+							&& !(timeField != null && watermark.isBeforeSince(getBugTime(zentaoBugs.getLast(), timeField)));
+				});
+		// 全量同步保持原有的起始页码
+		pipeline.run(timeField == null ? 0 : 1, bugResponseMap -> {
+			// prepare post process func param
+			List<PlatformBugDTO> needSyncBugs = new ArrayList<>();
+			SyncBugResult syncBugResult = new SyncBugResult();
+
+			List<?> zentaoBugs = (List<?>) bugResponseMap.get("bugs");
+			if (timeField != null) {
+				// 只保留增量时间之后的缺陷, 两次查询之间去重
+				zentaoBugs = zentaoBugs.stream().filter(bugObj -> !watermark.isBeforeSince(getBugTime(bugObj, timeField))
+						&& syncedBugIds.add(((Map<?, ?>) bugObj).get("id").toString())).collect(Collectors.toList());
+			}
+			zentaoBugs = filterBySyncCondition(zentaoBugs, request);
+			// 水位线只记录实际同步的缺陷
+			zentaoBugs.forEach(bugObj -> {
+				watermark.observe(getBugTime(bugObj, "lastEditedDate"));
+				watermark.observe(getBugTime(bugObj, "openedDate"));
+			});
+			if (!CollectionUtils.isEmpty(zentaoBugs)) {
+				for (Object bugObj : zentaoBugs) {
+					// transfer zentao bug field to ms
+					// noinspection unchecked
+					Map<String, Object> zenBugInfo = (Map<String, Object>) bugObj;
+					PlatformBugDTO bug = new PlatformBugDTO();
+					bug.setId(UUID.randomUUID().toString());
+					bug.setPlatformBugId(zenBugInfo.get("id").toString());
+					syncZentaoFieldToMsBug(bug, zenBugInfo, true);
+					// handle attachment
+					parseAttachmentOrBuildToMsBug(syncBugResult, bug);
+					needSyncBugs.add(bug);
+				}
+			}
+
+			// set post process func param
+			// common sync post param {syncBugs: all need sync bugs, attachmentMap: all bug attachment}
+			SyncPostParamRequest syncPostParamRequest = new SyncPostParamRequest();
+			syncPostParamRequest.setNeedSyncBugs(needSyncBugs);
+			syncPostParamRequest.setAttachmentMap(syncBugResult.getAttachmentMap());
+			request.getSyncPostProcessFunc().accept(syncPostParamRequest);
+		});
+	}
+
+	/**
+	 * 获取缺陷时间字段
+	 *
+	 * @param bugObj    禅道缺陷
+	 * @param timeField 时间字段
+	 * @return 时间
+	 */
+	private String getBugTime(Object bugObj, String timeField) {
+		Object time = ((Map<?, ?>) bugObj).get(timeField);
+		return time == null ? null : time.toString();
+	}
+
 	/**
 	 * 获取附件内容
 	 *
@@ -483,6 +749,10 @@ public class ZentaoPlatform extends AbstractPlatform {
 	 */
 	@Override
 	public void getAttachmentContent(String fileKey, Consumer<InputStream> inputStreamHandler) {
+		if (ATTACHMENT_CACHE != null && ATTACHMENT_CACHE.read(getAttachmentCacheKey(fileKey), inputStreamHandler)) {
+			// 同步缺陷时已预取至本地
+			return;
+		}
 		zentaoClient.getAttachmentBytes(fileKey, inputStreamHandler);
 	}
 
@@ -497,24 +767,32 @@ public class ZentaoPlatform extends AbstractPlatform {
 		// validate demand config
 		projectConfig = getProjectConfig(request.getProjectConfig());
 		validateProjectKey();
-		// query demand list no limit
-		ZentaoRestDemandResponse response = zentaoRestClient.pageDemands(projectConfig.getZentaoKey(), projectConfig.getType(), request.getStartPage(), Integer.MAX_VALUE);
+		// query demand list no limit, from cache
+		DemandSnapshot snapshot = getProjectStories();
 		// handle empty data
-		if (response == null || CollectionUtils.isEmpty(response.getStories())) {
+		if (CollectionUtils.isEmpty(snapshot.stories)) {
 			return List.of();
 		}
 
+		// search by index, skip the stories which have no matched story
+		DemandSearchIndex.SearchResult result = StringUtils.isBlank(request.getQuery()) ? null : snapshot.index.search(request.getQuery());
+		Map<String, Integer> demandRanks = new HashMap<>();
+
 		// prepare demand list
 		List<PlatformDemandDTO.Demand> demands = new ArrayList<>();
-		response.getStories().forEach(story -> {
+		snapshot.stories.forEach(story -> {
+			if (result != null && !isStoryTreeMatched(story, result)) {
+				return;
+			}
 			PlatformDemandDTO.Demand demand = new PlatformDemandDTO.Demand();
 			demand.setDemandId(story.getId());
 			demand.setDemandName(story.getTitle());
 			demand.setDemandUrl(zentaoRestClient.getBaseUrl() + "story-view-" + story.getId() + ".html");
 			// add plan to custom fields
 			demand.getCustomFields().put(ZentaoDemandCustomField.PLAN_FIELD_ID, story.getPlan());
-			boolean isParentDemandShow = StringUtils.isBlank(request.getQuery()) || StringUtils.containsIgnoreCase(demand.getDemandName(), request.getQuery()) || StringUtils.containsIgnoreCase(demand.getDemandId(), request.getQuery()) &&
+			boolean isParentDemandShow = result == null || result.isTitleMatched(demand.getDemandId()) || result.isIdMatched(demand.getDemandId(), true) &&
 					(CollectionUtils.isEmpty(request.getExcludeIds()) || !request.getExcludeIds().contains(demand.getDemandId()));
+			int rank = result == null ? 0 : result.getRank(demand.getDemandId());
 			if (!CollectionUtils.isEmpty(story.getChildren())) {
 				List<PlatformDemandDTO.Demand> childrenDemands = new ArrayList<>();
 				// handle children demand list
@@ -526,7 +804,7 @@ public class ZentaoPlatform extends AbstractPlatform {
 					childDemand.setParent(demand.getDemandId());
 					// add plan to custom fields
 					childDemand.getCustomFields().put(ZentaoDemandCustomField.PLAN_FIELD_ID, childStory.getPlan());
-					boolean isChildDemandShow = StringUtils.isBlank(request.getQuery()) || StringUtils.containsIgnoreCase(childDemand.getDemandName(), request.getQuery()) || StringUtils.equalsIgnoreCase(childDemand.getDemandId(), request.getQuery()) &&
+					boolean isChildDemandShow = result == null || result.isTitleMatched(childDemand.getDemandId()) || result.isIdMatched(childDemand.getDemandId(), false) &&
 							(CollectionUtils.isEmpty(request.getExcludeIds()) || !request.getExcludeIds().contains(demand.getDemandId()));
 					if (isChildDemandShow) {
 						// 满足过滤条件的子需求, 才展示
@@ -534,14 +812,25 @@ public class ZentaoPlatform extends AbstractPlatform {
 					}
 				});
 				demand.setChildren(childrenDemands);
+				if (result != null) {
+					for (PlatformDemandDTO.Demand childDemand : childrenDemands) {
+						rank = Math.min(rank, result.getRank(childDemand.getDemandId()));
+					}
+				}
 			}
 			if (isParentDemandShow || !CollectionUtils.isEmpty(demand.getChildren())) {
 				// 满足过滤条件的父需求, 或者有满足过滤条件的子需求, 才展示
 				demands.add(demand);
+				demandRanks.put(demand.getDemandId(), rank);
 			}
 		});
-		// sort by demand id
-		demands.sort(Comparator.comparing(PlatformDemandDTO.Demand::getDemandId));
+		if (result == null) {
+			// sort by demand id
+			demands.sort(Comparator.comparing(PlatformDemandDTO.Demand::getDemandId));
+		} else {
+			// sort by best rank of the story and its children, then demand id
+			demands.sort(Comparator.comparing((PlatformDemandDTO.Demand demand) -> demandRanks.get(demand.getDemandId())).thenComparing(PlatformDemandDTO.Demand::getDemandId));
+		}
 		// filter by condition
 		List<PlatformDemandDTO.Demand> filterDemands = demands;
 		if (!CollectionUtils.isEmpty(request.getFilter())) {
@@ -570,6 +859,51 @@ public class ZentaoPlatform extends AbstractPlatform {
 		return filterDemands;
 	}
 
+	/**
+	 * 获取项目全部需求及搜索索引(缓存), 缓存Key {禅道地址, 账号, 类型, 项目}
+	 *
+	 * @return 需求快照
+	 */
+	private DemandSnapshot getProjectStories() {
+		String productOrProjectKey = projectConfig.getZentaoKey();
+		String type = projectConfig.getType();
+		return DEMAND_CACHE.get(zentaoRestClient.getCacheKey() + "|" + type + "|" + productOrProjectKey, () -> {
+			ZentaoRestDemandResponse response = zentaoRestClient.pageDemands(productOrProjectKey, type, 1, Integer.MAX_VALUE);
+			return new DemandSnapshot(response == null || response.getStories() == null ? List.of() : response.getStories());
+		});
+	}
+
+	/**
+	 * 需求或其子需求是否匹配搜索条件
+	 *
+	 * @param story  需求
+	 * @param result 搜索结果
+	 * @return 是否匹配
+	 */
+	private boolean isStoryTreeMatched(ZentaoRestDemandResponse.Story story, DemandSearchIndex.SearchResult result) {
+		if (result.getRank(story.getId()) != Integer.MAX_VALUE) {
+			return true;
+		}
+		return story.getChildren() != null && story.getChildren().stream().anyMatch(child -> result.getRank(child.getId()) != Integer.MAX_VALUE);
+	}
+
+	/**
+	 * 估算需求缓存占用的内存
+	 *
+	 * @param stories 需求集合
+	 * @return 字节数
+	 */
+	private static long weighStories(List<ZentaoRestDemandResponse.Story> stories) {
+		long weight = 0;
+		for (ZentaoRestDemandResponse.Story story : stories) {
+			weight += 256 + 2L * StringUtils.length(story.getTitle());
+			if (story.getChildren() != null) {
+				weight += weighStories(story.getChildren());
+			}
+		}
+		return weight;
+	}
+
 	/**
 	 * 获取需求自定义字段
 	 *
@@ -584,13 +918,17 @@ public class ZentaoPlatform extends AbstractPlatform {
 		iterationField.setName(ZentaoDemandCustomField.PLAN_FIELD_NAME);
 		iterationField.setSupportSearch(true);
 		if (StringUtils.equals(projectConfig.getType(), "products")) {
-			// 产品计划
-			iterationField.setOptions(PluginUtils.toJSONString(getProductPlanOption()));
+			// 产品计划(缓存序列化后的下拉选项)
+			iterationField.setOptions(PLAN_OPTION_CACHE.get(getPlanOptionCacheKey(projectConfig.getZentaoKey()), () -> PluginUtils.toJSONString(getProductPlanOption())));
 		}
 		customHeaders.add(iterationField);
 		return customHeaders;
 	}
 
+	private String getPlanOptionCacheKey(String productKey) {
+		return zentaoRestClient.getCacheKey() + "|" + productKey;
+	}
+
 	/**
 	 * 获取产品计划的表头下拉选项
 	 *
@@ -626,13 +964,41 @@ public class ZentaoPlatform extends AbstractPlatform {
 
 	/**
 	 * 表单反射调用
+	 * 最多返回{@link ZentaoPluginProperties#USER_OPTION_LIMIT}个用户, 其余用户需输入姓名或账号搜索;
+	 * 请求中没有当前选中的值, 当前禅道账号(常用的处理人)始终返回, 不受数量限制
 	 *
 	 * @param request 表单项请求参数
 	 * @return 用户下拉选项
 	 */
 	public List<SelectOption> getAssignUsers(GetOptionRequest request) {
-		ZentaoRestUserResponse users = zentaoRestClient.getUsers();
-		return users.getUsers().stream().map(user -> new SelectOption(user.getRealname(), user.getAccount())).collect(Collectors.toList());
+		UserDirectory userDirectory = USER_DIRECTORY_CACHE.get(zentaoRestClient.getBaseUrl(), this::loadUserDirectory);
+		List<String> pinnedAccounts = new ArrayList<>();
+		if (StringUtils.isNotBlank(request.getQuery())) {
+			// 回显选中的处理人时以账号搜索, 账号完全匹配的用户排在最前
+			pinnedAccounts.add(request.getQuery().trim());
+		}
+		pinnedAccounts.add(zentaoRestClient.getAccount());
+		return userDirectory.search(request.getQuery(), ZentaoPluginProperties.USER_OPTION_LIMIT, pinnedAccounts);
+	}
+
+	/**
+	 * 分页加载禅道全部用户
+	 *
+	 * @return 用户目录
+	 */
+	private UserDirectory loadUserDirectory() {
+		int pageSize = ZentaoPluginProperties.USER_DIRECTORY_PAGE_SIZE;
+		Map<String, String> users = new LinkedHashMap<>();
+		for (int page = 1; ; page++) {
+			ZentaoRestUserResponse response = zentaoRestClient.pageUsers(page, pageSize);
+			List<ZentaoRestUserResponse.User> pageUsers = response.getUsers() == null ? List.of() : response.getUsers();
+			pageUsers.forEach(user -> users.putIfAbsent(user.getAccount(), user.getRealname()));
+			// 最后一页或已获取全部用户
+			if (pageUsers.size() < pageSize || users.size() >= response.getTotal()) {
+				break;
+			}
+		}
+		return new UserDirectory(new ArrayList<>(users.keySet()), new ArrayList<>(users.values()));
 	}
 
 	/**
@@ -678,12 +1044,12 @@ public class ZentaoPlatform extends AbstractPlatform {
 			String openedDate = zenBugInfo.get("openedDate").toString();
 			String lastEditedDate = zenBugInfo.get("lastEditedDate").toString();
 			if (StringUtils.isNotBlank(openedDate) && !openedDate.startsWith(DATE_PREFIX)) {
-				msBug.setCreateTime(sdfDateTime.parse(openedDate).getTime());
+				msBug.setCreateTime(parseDateTime(openedDate));
 			} else {
 				msBug.setCreateTime(System.currentTimeMillis());
 			}
 			if (StringUtils.isNotBlank(lastEditedDate) && !lastEditedDate.startsWith(DATE_PREFIX)) {
-				msBug.setUpdateTime(sdfDateTime.parse(openedDate).getTime());
+				msBug.setUpdateTime(parseDateTime(openedDate));
 			} else {
 				msBug.setUpdateTime(System.currentTimeMillis());
 			}
@@ -791,6 +1157,19 @@ public class ZentaoPlatform extends AbstractPlatform {
 		return values;
 	}
 
+	/**
+	 * 解析禅道时间, SimpleDateFormat非线程安全, 并发同步时需加锁
+	 *
+	 * @param dateTime 时间字符串
+	 * @return 时间戳
+	 * @throws ParseException 解析异常
+	 */
+	private long parseDateTime(String dateTime) throws ParseException {
+		synchronized (sdfDateTime) {
+			return sdfDateTime.parse(dateTime).getTime();
+		}
+	}
+
 	/**
 	 * 根据同步参数过滤缺陷集合
 	 *
@@ -807,7 +1186,7 @@ public class ZentaoPlatform extends AbstractPlatform {
 			Map<String, Object> bugMap = (Map<String, Object>) bug;
 			long createTimeMills;
 			try {
-				createTimeMills = sdfDateTime.parse(bugMap.get("openedDate").toString()).getTime();
+				createTimeMills = parseDateTime(bugMap.get("openedDate").toString());
 				if (request.getPre()) {
 					return createTimeMills <= request.getCreateTime();
 				} else {
@@ -854,6 +1233,7 @@ public class ZentaoPlatform extends AbstractPlatform {
 						// name for check
 						syncAttachment.setFileName(zenFileMap.get("title").toString());
 						attachmentMap.get(bug.getId()).add(syncAttachment);
+						prefetchAttachment(syncAttachment.getFileKey(), NumberUtils.toLong(Objects.toString(zenFileMap.get("size"), null), -1));
 					}
 				}
 			}
@@ -862,6 +1242,23 @@ public class ZentaoPlatform extends AbstractPlatform {
 		}
 	}
 
+	/**
+	 * 后台预取附件至本地缓存, MS获取附件内容时直接读取本地文件
+	 *
+	 * @param fileKey 文件ID
+	 * @param size    文件大小(字节), 未知时为-1
+	 */
+	private void prefetchAttachment(String fileKey, long size) {
+		if (ATTACHMENT_CACHE != null) {
+			ZentaoClient client = zentaoClient;
+			ATTACHMENT_CACHE.prefetch(getAttachmentCacheKey(fileKey), size, (target, maxBytes) -> client.downloadAttachment(fileKey, target, maxBytes));
+		}
+	}
+
+	private String getAttachmentCacheKey(String fileKey) {
+		return zentaoRestClient.getCacheKey() + "|" + fileKey;
+	}
+
 	/**
 	 * 生成新增, 更新参数
 	 *
@@ -926,6 +1323,21 @@ public class ZentaoPlatform extends AbstractPlatform {
 		}
 	}
 
+	/**
+	 * 使用已预留的位置提交状态流转至后台执行, 同一缺陷的流转按提交顺序执行
+	 *
+	 * @param status     状态
+	 * @param zentaoKey  禅道缺陷ID
+	 * @param assignedTo 指派人
+	 */
+	private void submitTransition(PlatformCustomFieldItemDTO status, String zentaoKey, String assignedTo) {
+		if (status == null) {
+			TRANSITION_EXECUTOR.release();
+			return;
+		}
+		TRANSITION_EXECUTOR.submitReserved(zentaoRestClient.getBaseUrl() + "|" + zentaoKey, () -> transitionStatus(status, zentaoKey, assignedTo));
+	}
+
 	/**
 	 * 解析不同状态项, 流转状态
 	 *
@@ -947,39 +1359,55 @@ public class ZentaoPlatform extends AbstractPlatform {
 		if (StringUtils.isBlank(content)) {
 			return null;
 		}
-		// psrc => src
-		if (content.contains("psrc")) {
-			// eg: <img psrc="/file-read-zFid.png" src=/bug/attachment/preview/md/pid/fid/true">
-			// => <img src="/file-read-zFid.png" src="/bug/attachment/preview/md/pid/fid/true"/>
-			// 图片双向同步过, 直接替换URL即可
-			content = content.replaceAll("psrc", "src");
-		}
-		if (!CollectionUtils.isEmpty(msFileMap)) {
-			for (String key : msFileMap.keySet()) {
-				if (content.contains("permalinksrc")) {
-					// eg: <img src="/attachment/download/file/pid/fid/true" permalinksrc="/attachment/download/file/pid/fid/true">
-					// => <img src="/file-read-zFid.png" alt="/attachment/download/file/pid/fid/true"/>
-					// 还未双向同步的图片, 上传附件(图片)至禅道
-					String fileId = zentaoClient.uploadFile(msFileMap.get(key), "bug", projectKey);
-					// 替换的目标禅道URL
-					String zentaoImgUrl = "<img src=\"" + ZENTAO_RICH_TEXT_IMG_SRC_PREFIX + fileId + ".jpg";
-					// 替换的源MS-URL正则
-					String sourceRegex = "(<img src=\"" + MS_RICH_TEXT_PREVIEW_SRC_PREFIX + "/)(\\d+)(/" + key + "/true)";
-					// 保留permalinksrc链接, 同步至MS时备用
-					content = content.replaceAll(sourceRegex, zentaoImgUrl);
-				}
+		Map<String, String> uploadedFiles = CollectionUtils.isEmpty(msFileMap) ? Map.of() : uploadRichTextPics(content, projectKey, msFileMap);
+		ZentaoRichTextConverter.Converted converted = RICH_TEXT_CONVERTER.toZentao(content, CollectionUtils.isEmpty(msFileMap) ? null : uploadedFiles);
+		platformBug.setPlatformDescription(converted.getMsContent());
+		// 图片链接中存在HTTP-URL, 不用替换
+		return converted.getZentaoContent();
+	}
+
+	/**
+	 * 上传富文本中还未双向同步的图片至禅道
+	 * 只上传内容中引用的图片, 内容相同的图片只上传一次, 并发上传
+	 *
+	 * @param content    MS富文本
+	 * @param projectKey 项目Key
+	 * @param msFileMap  MS富文本图片 {文件Key => 文件}
+	 * @return 上传成功的图片 {文件Key => 禅道文件ID}
+	 */
+	private Map<String, String> uploadRichTextPics(String content, String projectKey, Map<String, File> msFileMap) {
+		List<String> fileKeys = RICH_TEXT_CONVERTER.findMsLocalFileKeys(content).stream().filter(msFileMap::containsKey).toList();
+		if (fileKeys.isEmpty()) {
+			return Map.of();
+		}
+		// 按内容摘要去重
+		List<String> digests = ConcurrentTaskUtils.mapOrdered(fileKeys, ZentaoPluginProperties.RICH_TEXT_UPLOAD_PARALLELISM,
+				fileKey -> FileDigestUtils.sha256Hex(msFileMap.get(fileKey)), (fileKey, e) -> fileKey);
+		Map<String, String> digestFileKeys = new LinkedHashMap<>();
+		for (int i = 0; i < fileKeys.size(); i++) {
+			digestFileKeys.putIfAbsent(digests.get(i), fileKeys.get(i));
+		}
+		List<String> uploadDigests = new ArrayList<>(digestFileKeys.keySet());
+		List<String> fileIds = ConcurrentTaskUtils.mapOrdered(uploadDigests, ZentaoPluginProperties.RICH_TEXT_UPLOAD_PARALLELISM,
+				digest -> zentaoClient.uploadFile(msFileMap.get(digestFileKeys.get(digest)), "bug", projectKey), (digest, e) -> {
+					PluginLogUtils.error("upload rich text pic error: " + e.getMessage());
+					return null;
+				});
+		Map<String, String> digestFileIds = new HashMap<>(uploadDigests.size() * 2);
+		for (int i = 0; i < uploadDigests.size(); i++) {
+			if (StringUtils.isNotBlank(fileIds.get(i))) {
+				digestFileIds.put(uploadDigests.get(i), fileIds.get(i));
 			}
-			content = content.replaceAll("permalinksrc", "alt");
 		}
-		// 保留MS-URL中的一些参数{src}
-		content = content.replaceAll("src=\"" + MS_RICH_TEXT_PREVIEW_SRC_PREFIX, "alt=\"" + MS_RICH_TEXT_PREVIEW_SRC_PREFIX);
-
-		// MS-URL, 需同步修改为禅道可识别的URL
-		String msUrl = content.replaceAll("src=\"" + ZENTAO_RICH_TEXT_IMG_SRC_PREFIX, "psrc=\"" + ZENTAO_RICH_TEXT_IMG_SRC_PREFIX)
-				.replaceAll("alt=\"" + MS_RICH_TEXT_PREVIEW_SRC_PREFIX, "src=\"" + MS_RICH_TEXT_PREVIEW_SRC_PREFIX);
-		platformBug.setPlatformDescription(msUrl);
-		// 图片链接中存在HTTP-URL, 不用替换
-		return content;
+		Map<String, String> uploadedFiles = new HashMap<>(fileKeys.size() * 2);
+		for (int i = 0; i < fileKeys.size(); i++) {
+			String fileId = digestFileIds.get(digests.get(i));
+			if (fileId != null) {
+				uploadedFiles.put(fileKeys.get(i), fileId);
+			}
+		}
+		PluginLogUtils.info("upload rich text pics, referenced: " + fileKeys.size() + ", uploaded: " + uploadDigests.size() + ", succeeded: " + digestFileIds.size());
+		return uploadedFiles;
 	}
 
 	private String parseZentaoPicToMsRichText(String content, PlatformBugDTO msBug) {
@@ -991,25 +1419,8 @@ public class ZentaoPlatform extends AbstractPlatform {
 			return null;
 		}
 		try {
-			content = content
-					.replaceAll("<img src=\"" + ZENTAO_RICH_TEXT_IMG_SRC_PREFIX, "<img psrc=\"" + ZENTAO_RICH_TEXT_IMG_SRC_PREFIX)
-					.replaceAll("<img src=\"\\{", "<img psrc=\"" + ZENTAO_RICH_TEXT_IMG_SRC_PREFIX).replaceAll("}", StringUtils.EMPTY)
-					.replaceAll("alt=\"" + MS_RICH_TEXT_PREVIEW_SRC_PREFIX, "src=\"" + MS_RICH_TEXT_PREVIEW_SRC_PREFIX);
-			String zentaoLocalRegex = "(<img psrc=\"" + ZENTAO_RICH_TEXT_IMG_SRC_PREFIX + ")(.*?)(alt=\"\" />)";
-			Matcher matcher = Pattern.compile(zentaoLocalRegex).matcher(content);
 			Map<String, String> richFileMap = new HashMap<>(16);
-			while (matcher.find()) {
-				String matchLocalFileUrl = matcher.group(0);
-				String fileRegex = "\\d+";
-				Matcher fileMatch = Pattern.compile(fileRegex).matcher(matchLocalFileUrl);
-				while (fileMatch.find()) {
-					String fileId = fileMatch.group(0);
-					String replaceTmpUrl = matchLocalFileUrl.replaceAll("alt=\"\" />", "alt=\"" + fileId + "\" />");
-					content = content.replaceAll(matchLocalFileUrl, replaceTmpUrl);
-					// 禅道富文本中的图片默认命名为*.jpg, *:唯一文件ID, 标识, 整数
-					richFileMap.put(fileId, fileId + ".jpg");
-				}
-			}
+			content = RICH_TEXT_CONVERTER.toMs(content, richFileMap);
 			msBug.setRichTextImageMap(richFileMap);
 			return content;
 		} catch (Exception e) {
@@ -1017,4 +1428,30 @@ public class ZentaoPlatform extends AbstractPlatform {
 		}
 		return null;
 	}
+
+	/**
+	 * 项目需求快照, 包含需求及搜索索引, 加载后只读
+	 */
+	private static class DemandSnapshot {
+
+		private final List<ZentaoRestDemandResponse.Story> stories;
+
+		private final DemandSearchIndex index;
+
+		private DemandSnapshot(List<ZentaoRestDemandResponse.Story> stories) {
+			this.stories = List.copyOf(stories);
+			Map<String, String> documents = new LinkedHashMap<>();
+			stories.forEach(story -> {
+				documents.put(story.getId(), story.getTitle());
+				if (story.getChildren() != null) {
+					story.getChildren().forEach(child -> documents.put(child.getId(), child.getTitle()));
+				}
+			});
+			this.index = new DemandSearchIndex(documents);
+		}
+
+		private long estimateBytes() {
+			return weighStories(stories) + index.estimateBytes();
+		}
+	}
 }
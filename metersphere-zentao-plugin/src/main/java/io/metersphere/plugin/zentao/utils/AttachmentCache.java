@@ -0,0 +1,274 @@
+package io.metersphere.plugin.zentao.utils;
+
+import io.metersphere.plugin.sdk.util.MSPluginException;
+import io.metersphere.plugin.sdk.util.PluginLogUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * 附件本地磁盘缓存
+ * 1. 后台并发预取附件至本地文件, 并发数及排队数受限, 单个文件下载超时后放弃
+ * 2. 读取时命中缓存直接返回文件流; 预取进行中时等待预取完成
+ * 3. 按最近访问淘汰, 限制总大小(含下载中的文件)及单个文件大小; 超过大小的文件不下载, 下载中超过大小时中止
+ */
+public class AttachmentCache {
+
+	private final String name;
+	private final Path directory;
+	private final long maxBytes;
+	private final long maxFileBytes;
+	private final long timeoutSeconds;
+	private final int maxPending;
+	private final Semaphore permits;
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+	/**
+	 * 按访问顺序排列, 访问需加锁
+	 */
+	private final LinkedHashMap<String, CachedFile> files = new LinkedHashMap<>(16, 0.75f, true);
+	private final Map<String, Future<?>> loadings = new ConcurrentHashMap<>();
+	private final AtomicInteger pendingCount = new AtomicInteger();
+	private long totalBytes;
+
+	/**
+	 * 下载中的文件预留的大小
+	 */
+	private long reservedBytes;
+
+	private final AtomicLong prefetchCount = new AtomicLong();
+	private final AtomicLong prefetchFailureCount = new AtomicLong();
+	private final AtomicLong rejectedCount = new AtomicLong();
+	private final AtomicLong oversizeCount = new AtomicLong();
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+	private final AtomicLong evictionCount = new AtomicLong();
+
+	/**
+	 * @param name           名称, 用于日志及缓存目录
+	 * @param maxBytes       缓存总大小上限(字节)
+	 * @param maxFileBytes   单个文件大小上限(字节), 超过时不缓存
+	 * @param timeoutSeconds 单个文件下载超时时间(秒)
+	 * @param parallelism    最大并发下载数
+	 */
+	public AttachmentCache(String name, long maxBytes, long maxFileBytes, long timeoutSeconds, int parallelism) {
+		this.name = name;
+		this.maxBytes = maxBytes;
+		this.maxFileBytes = maxFileBytes;
+		this.timeoutSeconds = timeoutSeconds;
+		this.maxPending = Math.max(1, parallelism) * 64;
+		this.permits = new Semaphore(Math.max(1, parallelism));
+		try {
+			this.directory = Files.createTempDirectory(name.replaceAll("\\W", "-") + "-");
+			this.directory.toFile().deleteOnExit();
+		} catch (IOException e) {
+			throw new MSPluginException(e);
+		}
+	}
+
+	/**
+	 * 后台预取附件, 已缓存、预取中、超过大小或排队已满时忽略
+	 *
+	 * @param key        缓存Key
+	 * @param size       文件大小(字节), 未知时传负数, 按单个文件大小上限预留
+	 * @param downloader 下载方法, 将附件写入指定文件, 写入超过指定字节数时中止
+	 */
+	public void prefetch(String key, long size, BiConsumer<Path, Long> downloader) {
+		if (size > maxFileBytes) {
+			oversizeCount.incrementAndGet();
+			return;
+		}
+		synchronized (files) {
+			if (files.containsKey(key)) {
+				return;
+			}
+		}
+		if (pendingCount.incrementAndGet() > maxPending) {
+			pendingCount.decrementAndGet();
+			rejectedCount.incrementAndGet();
+			return;
+		}
+		long reserveBytes = size < 0 ? maxFileBytes : size;
+		FutureTask<Void> task = new FutureTask<>(() -> {
+			try {
+				load(key, reserveBytes, downloader);
+			} finally {
+				pendingCount.decrementAndGet();
+				loadings.remove(key);
+			}
+			return null;
+		});
+		if (loadings.putIfAbsent(key, task) != null) {
+			pendingCount.decrementAndGet();
+			return;
+		}
+		executor.execute(task);
+	}
+
+	/**
+	 * 读取缓存的附件, 预取进行中时等待完成
+	 *
+	 * @param key                缓存Key
+	 * @param inputStreamHandler 流处理
+	 * @return 是否命中缓存, 未命中时调用方需自行下载
+	 */
+	public boolean read(String key, Consumer<InputStream> inputStreamHandler) {
+		Future<?> loading = loadings.get(key);
+		if (loading != null) {
+			try {
+				loading.get(timeoutSeconds, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new MSPluginException(e);
+			} catch (ExecutionException | TimeoutException e) {
+				// 预取失败或超时, 由调用方直接下载
+			}
+		}
+		CachedFile cachedFile;
+		synchronized (files) {
+			cachedFile = files.get(key);
+		}
+		if (cachedFile == null) {
+			missCount.incrementAndGet();
+			return false;
+		}
+		try (InputStream inputStream = Files.newInputStream(cachedFile.path)) {
+			hitCount.incrementAndGet();
+			inputStreamHandler.accept(inputStream);
+			return true;
+		} catch (IOException e) {
+			// 文件已被淘汰删除
+			missCount.incrementAndGet();
+			return false;
+		}
+	}
+
+	public String getStats() {
+		int size;
+		long bytes;
+		synchronized (files) {
+			size = files.size();
+			bytes = totalBytes;
+		}
+		return name + " size: " + size + ", bytes: " + bytes + ", pending: " + pendingCount.get() + ", prefetch: " + prefetchCount.get()
+				+ ", prefetch failure: " + prefetchFailureCount.get() + ", rejected: " + rejectedCount.get() + ", oversize: " + oversizeCount.get() + ", hit: " + hitCount.get()
+				+ ", miss: " + missCount.get() + ", eviction: " + evictionCount.get();
+	}
+
+	/**
+	 * 为下载中的文件预留空间, 不足时淘汰最久未访问的文件
+	 *
+	 * @param bytes 预留大小
+	 * @return 是否预留成功, 下载中的文件已占满时失败
+	 */
+	private boolean reserve(long bytes) {
+		synchronized (files) {
+			if (reservedBytes + bytes > maxBytes) {
+				return false;
+			}
+			reservedBytes += bytes;
+			evict();
+			return true;
+		}
+	}
+
+	private void load(String key, long reserveBytes, BiConsumer<Path, Long> downloader) throws InterruptedException {
+		permits.acquire();
+		if (!reserve(reserveBytes)) {
+			permits.release();
+			rejectedCount.incrementAndGet();
+			return;
+		}
+		long reserved = reserveBytes;
+		Path path = null;
+		try {
+			prefetchCount.incrementAndGet();
+			path = Files.createTempFile(directory, "attachment-", ".tmp");
+			Path target = path;
+			Future<?> download = executor.submit(() -> downloader.accept(target, maxFileBytes));
+			try {
+				download.get(timeoutSeconds, TimeUnit.SECONDS);
+			} catch (TimeoutException e) {
+				download.cancel(true);
+				throw e;
+			}
+			long size = Files.size(path);
+			if (size > maxFileBytes) {
+				PluginLogUtils.info(name + " skip [" + key + "], size " + size + " exceeds limit");
+				return;
+			}
+			put(key, new CachedFile(path, size), reserved);
+			reserved = 0;
+			path = null;
+		} catch (Exception e) {
+			prefetchFailureCount.incrementAndGet();
+			PluginLogUtils.error(name + " prefetch [" + key + "] error: " + e.getMessage());
+		} finally {
+			if (reserved > 0) {
+				synchronized (files) {
+					reservedBytes -= reserved;
+				}
+			}
+			permits.release();
+			if (path != null) {
+				delete(path);
+			}
+		}
+	}
+
+	private void put(String key, CachedFile cachedFile, long reserved) {
+		synchronized (files) {
+			// 预留的空间转为缓存文件的实际大小
+			reservedBytes -= reserved;
+			CachedFile previous = files.put(key, cachedFile);
+			if (previous != null) {
+				totalBytes -= previous.size;
+				delete(previous.path);
+			}
+			totalBytes += cachedFile.size;
+			evict();
+		}
+	}
+
+	/**
+	 * 淘汰最久未访问的文件, 直至缓存及下载中的文件总大小不超过上限, 需持有锁
+	 */
+	private void evict() {
+		Iterator<CachedFile> iterator = files.values().iterator();
+		while (totalBytes + reservedBytes > maxBytes && iterator.hasNext()) {
+			CachedFile eldest = iterator.next();
+			iterator.remove();
+			totalBytes -= eldest.size;
+			delete(eldest.path);
+			evictionCount.incrementAndGet();
+		}
+	}
+
+	private void delete(Path path) {
+		try {
+			Files.deleteIfExists(path);
+		} catch (IOException e) {
+			PluginLogUtils.error(name + " delete file error: " + e.getMessage());
+		}
+	}
+
+	private static class CachedFile {
+		private final Path path;
+		private final long size;
+
+		private CachedFile(Path path, long size) {
+			this.path = path;
+			this.size = size;
+		}
+	}
+}
@@ -0,0 +1,103 @@
+package io.metersphere.plugin.zentao.utils;
+
+import io.metersphere.plugin.zentao.constants.ZentaoPluginProperties;
+import org.apache.commons.lang3.StringUtils;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 缺陷增量同步水位线
+ * 记录每个项目上一次成功同步时看到的最大修改时间(平台服务端时间), 下一次同步只查询此后修改的缺陷;
+ * 查询时回退一段重叠时间, 避免同步期间被修改的缺陷被遗漏
+ */
+public class BugSyncWatermark {
+
+	private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+	private static final Map<String, LocalDateTime> WATERMARKS = new ConcurrentHashMap<>();
+
+	private final String key;
+
+	/**
+	 * 增量查询的起始时间, 为空时全量同步
+	 */
+	private final LocalDateTime since;
+
+	/**
+	 * 本次同步看到的最大修改时间
+	 */
+	private LocalDateTime max;
+
+	/**
+	 * @param key 项目维度的Key {平台地址, 账号, 项目}
+	 */
+	public BugSyncWatermark(String key) {
+		this.key = key;
+		LocalDateTime previous = ZentaoPluginProperties.SYNC_DELTA_ENABLED ? WATERMARKS.get(key) : null;
+		this.since = previous == null ? null : previous.minusSeconds(ZentaoPluginProperties.SYNC_DELTA_OVERLAP_SECONDS);
+	}
+
+	/**
+	 * 是否增量同步
+	 */
+	public boolean isDelta() {
+		return since != null;
+	}
+
+	/**
+	 * 增量查询的起始时间
+	 *
+	 * @return yyyy-MM-dd HH:mm:ss
+	 */
+	public String getSince() {
+		return since == null ? null : since.format(FORMATTER);
+	}
+
+	/**
+	 * 时间是否早于增量查询的起始时间, 无法解析的时间视为更早
+	 *
+	 * @param dateTime 平台时间
+	 * @return 是否更早
+	 */
+	public boolean isBeforeSince(String dateTime) {
+		LocalDateTime time = parse(dateTime);
+		return time == null || time.isBefore(since);
+	}
+
+	/**
+	 * 记录缺陷修改时间
+	 *
+	 * @param dateTime 平台时间
+	 */
+	public void observe(String dateTime) {
+		LocalDateTime time = parse(dateTime);
+		if (time != null && (max == null || time.isAfter(max))) {
+			max = time;
+		}
+	}
+
+	/**
+	 * 同步成功后保存水位线
+	 */
+	public void commit() {
+		if (max != null) {
+			WATERMARKS.merge(key, max, (previous, current) -> current.isAfter(previous) ? current : previous);
+		}
+	}
+
+	private LocalDateTime parse(String dateTime) {
+		if (StringUtils.isBlank(dateTime)) {
+			return null;
+		}
+		try {
+			return LocalDateTime.parse(dateTime, FORMATTER);
+		} catch (DateTimeParseException e) {
+			// 禅道未修改过的缺陷时间为 0000-00-00 00:00:00
+			return null;
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package io.metersphere.plugin.zentao.utils;
+
+import io.metersphere.plugin.sdk.util.MSPluginException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+public class ConcurrentTaskUtils {
+
+	/**
+	 * 以有限并发(虚拟线程)执行任务, 返回结果的顺序与入参顺序一致;
+	 * 单个任务异常时由 errorHandler 生成该任务的结果, 不影响其他任务
+	 *
+	 * @param items        任务参数
+	 * @param parallelism  最大并发数, 小于等于1时顺序执行
+	 * @param task         任务
+	 * @param errorHandler 异常处理
+	 * @return 任务结果
+	 */
+	public static <T, R> List<R> mapOrdered(List<T> items, int parallelism, Function<T, R> task, BiFunction<T, Exception, R> errorHandler) {
+		List<R> results = new ArrayList<>(items.size());
+		if (parallelism <= 1 || items.size() <= 1) {
+			items.forEach(item -> results.add(apply(item, task, errorHandler)));
+			return results;
+		}
+		Semaphore semaphore = new Semaphore(parallelism);
+		List<Future<R>> futures = new ArrayList<>(items.size());
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (T item : items) {
+				futures.add(executor.submit(() -> {
+					semaphore.acquire();
+					try {
+						return apply(item, task, errorHandler);
+					} finally {
+						semaphore.release();
+					}
+				}));
+			}
+		}
+		try {
+			for (Future<R> future : futures) {
+				results.add(future.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MSPluginException(e);
+		} catch (ExecutionException e) {
+			throw new MSPluginException(e.getCause());
+		}
+		return results;
+	}
+
+	private static <T, R> R apply(T item, Function<T, R> task, BiFunction<T, Exception, R> errorHandler) {
+		try {
+			return task.apply(item);
+		} catch (Exception e) {
+			return errorHandler.apply(item, e);
+		}
+	}
+}
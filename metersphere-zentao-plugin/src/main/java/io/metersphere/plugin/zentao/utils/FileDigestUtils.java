@@ -0,0 +1,74 @@
+package io.metersphere.plugin.zentao.utils;
+
+import io.metersphere.plugin.sdk.util.MSPluginException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+public class FileDigestUtils {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * 计算文件内容的SHA-256摘要
+	 *
+	 * @param file 文件
+	 * @return 摘要(十六进制)
+	 */
+	public static String sha256Hex(File file) {
+		try (InputStream inputStream = Files.newInputStream(file.toPath())) {
+			return sha256Hex(inputStream);
+		} catch (IOException e) {
+			throw new MSPluginException(e);
+		}
+	}
+
+	/**
+	 * 计算流内容的SHA-256摘要, 不关闭流
+	 *
+	 * @param inputStream 输入流
+	 * @return 摘要(十六进制)
+	 */
+	public static String sha256Hex(InputStream inputStream) throws IOException {
+		MessageDigest digest = newSha256();
+		byte[] buffer = new byte[BUFFER_SIZE];
+		int read;
+		while ((read = inputStream.read(buffer)) != -1) {
+			digest.update(buffer, 0, read);
+		}
+		return HexFormat.of().formatHex(digest.digest());
+	}
+
+	/**
+	 * 计算多个字符串的SHA-256摘要, 各字符串以NUL分隔, 避免拼接后出现歧义; null按空字符串处理
+	 *
+	 * @param values 字符串
+	 * @return 摘要(十六进制)
+	 */
+	public static String sha256Hex(String... values) {
+		MessageDigest digest = newSha256();
+		for (int i = 0; i < values.length; i++) {
+			if (i > 0) {
+				digest.update((byte) 0);
+			}
+			if (values[i] != null) {
+				digest.update(values[i].getBytes(StandardCharsets.UTF_8));
+			}
+		}
+		return HexFormat.of().formatHex(digest.digest());
+	}
+
+	private static MessageDigest newSha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new MSPluginException(e);
+		}
+	}
+}
@@ -0,0 +1,166 @@
+package io.metersphere.plugin.zentao.utils;
+
+import io.metersphere.plugin.sdk.util.MSPluginException;
+import io.metersphere.plugin.sdk.util.PluginLogUtils;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按Key串行的后台任务执行器
+ * 1. 同一Key的任务按提交顺序依次执行, 不同Key的任务并发执行, 并发数受限
+ * 2. 排队任务数达到上限时拒绝提交, 避免积压耗尽资源; 可在执行前置操作前预留排队位置, 保证前置操作完成后一定能提交
+ * 3. 任务失败时按指数退避重试, 最终失败记录日志
+ * 4. 定期记录排队数、执行耗时等统计信息
+ */
+public class KeyedSerialExecutor {
+
+	/**
+	 * 每完成该数量的任务记录一次统计信息
+	 */
+	private static final int STATS_LOG_INTERVAL = 100;
+
+	private final String name;
+	private final int maxPending;
+	private final int maxRetries;
+	private final long retryBackoffMillis;
+	private final Semaphore permits;
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+	/**
+	 * Key => 该Key最后提交的任务
+	 */
+	private final Map<String, CompletableFuture<Void>> tails = new ConcurrentHashMap<>();
+
+	private final AtomicInteger pendingCount = new AtomicInteger();
+	private final AtomicLong submittedCount = new AtomicLong();
+	private final AtomicLong completedCount = new AtomicLong();
+	private final AtomicLong failedCount = new AtomicLong();
+	private final AtomicLong retryCount = new AtomicLong();
+	private final AtomicLong rejectedCount = new AtomicLong();
+	private final AtomicLong totalLatencyMillis = new AtomicLong();
+	private final AtomicLong maxLatencyMillis = new AtomicLong();
+
+	/**
+	 * @param name               名称, 用于日志
+	 * @param parallelism        最大并发数
+	 * @param maxPending         最大排队(含执行中)任务数
+	 * @param maxRetries         失败后最大重试次数
+	 * @param retryBackoffMillis 首次重试等待时间(毫秒), 之后逐次翻倍
+	 */
+	public KeyedSerialExecutor(String name, int parallelism, int maxPending, int maxRetries, long retryBackoffMillis) {
+		this.name = name;
+		this.permits = new Semaphore(Math.max(1, parallelism));
+		this.maxPending = maxPending;
+		this.maxRetries = maxRetries;
+		this.retryBackoffMillis = retryBackoffMillis;
+	}
+
+	/**
+	 * 预留一个排队位置, 排队已满时抛出异常; 预留后需调用{@link #submitReserved(String, Runnable)}或{@link #release()}
+	 */
+	public void reserve() {
+		if (pendingCount.incrementAndGet() > maxPending) {
+			pendingCount.decrementAndGet();
+			rejectedCount.incrementAndGet();
+			throw new MSPluginException(name + "繁忙, 请稍后重试");
+		}
+	}
+
+	/**
+	 * 释放未使用的预留位置
+	 */
+	public void release() {
+		pendingCount.decrementAndGet();
+	}
+
+	/**
+	 * 提交任务, 在同一Key之前提交的任务完成(无论成功失败)后执行
+	 *
+	 * @param key  串行Key
+	 * @param task 任务
+	 */
+	public void submit(String key, Runnable task) {
+		reserve();
+		submitReserved(key, task);
+	}
+
+	/**
+	 * 使用已预留的位置提交任务, 不会因排队已满而失败
+	 *
+	 * @param key  串行Key
+	 * @param task 任务
+	 */
+	public void submitReserved(String key, Runnable task) {
+		submittedCount.incrementAndGet();
+		long submitTime = System.nanoTime();
+		CompletableFuture<Void> current = new CompletableFuture<>();
+		CompletableFuture<Void> previous = tails.put(key, current);
+		Runnable run = () -> executor.execute(() -> {
+			try {
+				runWithRetry(key, task);
+			} finally {
+				record(submitTime);
+				pendingCount.decrementAndGet();
+				tails.remove(key, current);
+				current.complete(null);
+			}
+		});
+		if (previous == null) {
+			run.run();
+		} else {
+			previous.whenComplete((result, e) -> run.run());
+		}
+	}
+
+	public String getStats() {
+		long completed = completedCount.get() + failedCount.get();
+		return name + " pending: " + pendingCount.get() + ", submitted: " + submittedCount.get() + ", completed: " + completedCount.get()
+				+ ", failed: " + failedCount.get() + ", retry: " + retryCount.get() + ", rejected: " + rejectedCount.get()
+				+ ", avg latency: " + (completed == 0 ? 0 : totalLatencyMillis.get() / completed) + "ms, max latency: " + maxLatencyMillis.get() + "ms";
+	}
+
+	private void runWithRetry(String key, Runnable task) {
+		try {
+			for (int attempt = 0; ; attempt++) {
+				// 退避等待期间不占用并发数
+				permits.acquire();
+				try {
+					task.run();
+					completedCount.incrementAndGet();
+					return;
+				} catch (Exception e) {
+					if (attempt >= maxRetries) {
+						failedCount.incrementAndGet();
+						PluginLogUtils.error(name + " [" + key + "] failed after " + (attempt + 1) + " attempts: " + e.getMessage() + ", " + getStats());
+						return;
+					}
+					retryCount.incrementAndGet();
+					PluginLogUtils.info(name + " [" + key + "] failed, retry " + (attempt + 1) + ": " + e.getMessage());
+				} finally {
+					permits.release();
+				}
+				TimeUnit.MILLISECONDS.sleep(retryBackoffMillis << attempt);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			failedCount.incrementAndGet();
+		}
+	}
+
+	private void record(long submitTime) {
+		long latency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - submitTime);
+		totalLatencyMillis.addAndGet(latency);
+		maxLatencyMillis.accumulateAndGet(latency, Math::max);
+		if ((completedCount.get() + failedCount.get()) % STATS_LOG_INTERVAL == 0) {
+			PluginLogUtils.info(getStats());
+		}
+	}
+}
@@ -0,0 +1,174 @@
+package io.metersphere.plugin.zentao.utils;
+
+import io.metersphere.plugin.sdk.util.MSPluginException;
+import io.metersphere.plugin.sdk.util.PluginLogUtils;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * 分页预取流水线
+ * 处理第N页的同时由后台线程查询后续页面, 预取的页数受队列容量限制; 任一端异常时停止查询并抛出异常
+ *
+ * @param <P> 页面数据
+ */
+public class PagePrefetchPipeline<P> {
+
+	private final String name;
+	private final int prefetch;
+	private final IntFunction<P> fetcher;
+	private final BiPredicate<Integer, P> hasNext;
+
+	private volatile boolean cancelled;
+
+	/**
+	 * @param name     名称, 用于日志
+	 * @param prefetch 最多预取的页数, 小于等于0时顺序查询
+	 * @param fetcher  查询页面的方法, 参数为页码
+	 * @param hasNext  根据页码及页面数据判断是否还有下一页
+	 */
+	public PagePrefetchPipeline(String name, int prefetch, IntFunction<P> fetcher, BiPredicate<Integer, P> hasNext) {
+		this.name = name;
+		this.prefetch = prefetch;
+		this.fetcher = fetcher;
+		this.hasNext = hasNext;
+	}
+
+	/**
+	 * 从指定页码开始依次处理页面
+	 *
+	 * @param firstPage 起始页码
+	 * @param processor 页面处理方法
+	 */
+	public void run(int firstPage, Consumer<P> processor) {
+		long start = System.nanoTime();
+		PageStats stats = prefetch <= 0 ? runSequential(firstPage, processor) : runPipelined(firstPage, processor);
+		PluginLogUtils.info(name + " finished, pages: " + stats.pages + ", fetch: " + toMillis(stats.fetchNanos) + "ms, wait: "
+				+ toMillis(stats.waitNanos) + "ms, process: " + toMillis(stats.processNanos) + "ms, elapsed: " + toMillis(System.nanoTime() - start) + "ms");
+	}
+
+	private PageStats runSequential(int firstPage, Consumer<P> processor) {
+		PageStats stats = new PageStats();
+		int pageNum = firstPage;
+		boolean next;
+		do {
+			long fetchStart = System.nanoTime();
+			P page = fetcher.apply(pageNum);
+			long fetchNanos = System.nanoTime() - fetchStart;
+			next = hasNext.test(pageNum, page);
+			long processNanos = process(processor, page);
+			stats.add(pageNum, fetchNanos, fetchNanos, processNanos);
+			pageNum++;
+		} while (next);
+		return stats;
+	}
+
+	private PageStats runPipelined(int firstPage, Consumer<P> processor) {
+		PageStats stats = new PageStats();
+		BlockingQueue<FetchedPage<P>> queue = new ArrayBlockingQueue<>(prefetch);
+		Thread producer = Thread.ofVirtual().name(name + "-prefetch").start(() -> produce(firstPage, queue));
+		try {
+			while (true) {
+				long waitStart = System.nanoTime();
+				FetchedPage<P> fetched = queue.take();
+				long waitNanos = System.nanoTime() - waitStart;
+				if (fetched.error instanceof RuntimeException runtimeException) {
+					throw runtimeException;
+				}
+				if (fetched.error instanceof Error error) {
+					throw error;
+				}
+				if (fetched.end) {
+					return stats;
+				}
+				long processNanos = process(processor, fetched.data);
+				stats.add(fetched.pageNum, fetched.fetchNanos, waitNanos, processNanos);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MSPluginException(e);
+		} finally {
+			// 正常结束时生产者已退出; 异常时通知生产者停止并释放阻塞的入队
+			cancelled = true;
+			producer.interrupt();
+			queue.clear();
+		}
+	}
+
+	private void produce(int firstPage, BlockingQueue<FetchedPage<P>> queue) {
+		int pageNum = firstPage;
+		try {
+			boolean next;
+			do {
+				long fetchStart = System.nanoTime();
+				P page = fetcher.apply(pageNum);
+				long fetchNanos = System.nanoTime() - fetchStart;
+				next = hasNext.test(pageNum, page);
+				queue.put(new FetchedPage<>(pageNum, page, fetchNanos, false, null));
+				pageNum++;
+			} while (next && !cancelled);
+			queue.put(new FetchedPage<>(pageNum, null, 0, true, null));
+		} catch (InterruptedException e) {
+			// cancelled by consumer
+			Thread.currentThread().interrupt();
+		} catch (Throwable e) {
+			// 包括Error, 保证消费者总能收到结束或异常, 不会一直阻塞
+			if (!cancelled) {
+				// 队列可能已满, 等待消费者取出后放入异常
+				try {
+					queue.put(new FetchedPage<>(pageNum, null, 0, false, e));
+				} catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+	}
+
+	private long process(Consumer<P> processor, P page) {
+		long processStart = System.nanoTime();
+		processor.accept(page);
+		return System.nanoTime() - processStart;
+	}
+
+	private long toMillis(long nanos) {
+		return TimeUnit.NANOSECONDS.toMillis(nanos);
+	}
+
+	private class PageStats {
+		private int pages;
+		private long fetchNanos;
+		private long waitNanos;
+		private long processNanos;
+
+		/**
+		 * 记录单页耗时; 预取时等待时间小于查询时间的部分即为与处理重叠的时间
+		 */
+		private void add(int pageNum, long fetch, long wait, long process) {
+			pages++;
+			fetchNanos += fetch;
+			waitNanos += wait;
+			processNanos += process;
+			PluginLogUtils.info(name + " page " + pageNum + ", fetch: " + toMillis(fetch) + "ms, wait: " + toMillis(wait) + "ms, process: " + toMillis(process) + "ms");
+		}
+	}
+
+	private static class FetchedPage<P> {
+		private final int pageNum;
+		private final P data;
+		private final long fetchNanos;
+		private final boolean end;
+		private final Throwable error;
+
+		private FetchedPage(int pageNum, P data, long fetchNanos, boolean end, Throwable error) {
+			this.pageNum = pageNum;
+			this.data = data;
+			this.fetchNanos = fetchNanos;
+			this.end = end;
+			this.error = error;
+		}
+	}
+}
@@ -0,0 +1,167 @@
+package io.metersphere.plugin.zentao.utils;
+
+import io.metersphere.plugin.platform.dto.SelectOption;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.*;
+
+/**
+ * 用户目录, 加载后只读
+ * 用户以数组紧凑存储, 姓名及账号(小写)排序后按前缀二分查找, 结果数量受限
+ */
+public class UserDirectory {
+
+	/**
+	 * 账号, 按加载顺序
+	 */
+	private final String[] accounts;
+
+	/**
+	 * 姓名, 按加载顺序
+	 */
+	private final String[] realnames;
+
+	/**
+	 * 排序后的检索词(小写姓名及账号)
+	 */
+	private final String[] terms;
+
+	/**
+	 * 检索词对应的用户下标
+	 */
+	private final int[] termUsers;
+
+	/**
+	 * @param accounts  账号
+	 * @param realnames 姓名, 与账号一一对应
+	 */
+	public UserDirectory(List<String> accounts, List<String> realnames) {
+		int size = accounts.size();
+		this.accounts = accounts.toArray(new String[0]);
+		this.realnames = realnames.toArray(new String[0]);
+		Integer[] order = new Integer[size * 2];
+		String[] allTerms = new String[size * 2];
+		for (int i = 0; i < size; i++) {
+			allTerms[2 * i] = StringUtils.lowerCase(StringUtils.defaultString(this.realnames[i]));
+			allTerms[2 * i + 1] = StringUtils.lowerCase(StringUtils.defaultString(this.accounts[i]));
+			order[2 * i] = 2 * i;
+			order[2 * i + 1] = 2 * i + 1;
+		}
+		Arrays.sort(order, Comparator.comparing((Integer i) -> allTerms[i]).thenComparing(i -> i));
+		this.terms = new String[order.length];
+		this.termUsers = new int[order.length];
+		for (int i = 0; i < order.length; i++) {
+			terms[i] = allTerms[order[i]];
+			termUsers[i] = order[i] / 2;
+		}
+	}
+
+	/**
+	 * 用户数量
+	 *
+	 * @return 数量
+	 */
+	public int size() {
+		return accounts.length;
+	}
+
+	/**
+	 * 按姓名或账号前缀搜索用户(忽略大小写)
+	 *
+	 * @param query 搜索词, 为空时按加载顺序返回
+	 * @param limit 最多返回的数量
+	 * @return 用户下拉选项
+	 */
+	public List<SelectOption> search(String query, int limit) {
+		return search(query, limit, List.of());
+	}
+
+	/**
+	 * 按姓名或账号前缀搜索用户(忽略大小写), 指定的账号(如当前选中的用户)只要匹配搜索词就排在最前, 不受数量限制
+	 *
+	 * @param query          搜索词, 为空时按加载顺序返回
+	 * @param limit          最多返回的数量(不含指定的账号)
+	 * @param pinnedAccounts 始终返回的账号, 不存在的账号忽略
+	 * @return 用户下拉选项
+	 */
+	public List<SelectOption> search(String query, int limit, Collection<String> pinnedAccounts) {
+		String prefix = StringUtils.isBlank(query) ? null : StringUtils.lowerCase(query.trim());
+		List<SelectOption> options = new ArrayList<>(Math.min(limit, accounts.length) + pinnedAccounts.size());
+		Set<Integer> matched = new HashSet<>();
+		for (String account : pinnedAccounts) {
+			int user = indexOf(account);
+			if (user >= 0 && (prefix == null || matches(user, prefix)) && matched.add(user)) {
+				options.add(toOption(user));
+			}
+		}
+		int max = options.size() + limit;
+		if (prefix == null) {
+			for (int i = 0; i < accounts.length && options.size() < max; i++) {
+				if (matched.add(i)) {
+					options.add(toOption(i));
+				}
+			}
+			return options;
+		}
+		for (int i = lowerBound(prefix); i < terms.length && terms[i].startsWith(prefix) && options.size() < max; i++) {
+			if (matched.add(termUsers[i])) {
+				options.add(toOption(termUsers[i]));
+			}
+		}
+		return options;
+	}
+
+	/**
+	 * 估算占用的内存
+	 *
+	 * @return 字节数
+	 */
+	public long estimateBytes() {
+		long weight = 128L + 24L * terms.length;
+		for (int i = 0; i < accounts.length; i++) {
+			weight += 96 + 4L * (StringUtils.length(accounts[i]) + StringUtils.length(realnames[i]));
+		}
+		return weight;
+	}
+
+	private int lowerBound(String prefix) {
+		int low = 0;
+		int high = terms.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (terms[mid].compareTo(prefix) < 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * 查找账号对应的用户下标
+	 *
+	 * @param account 账号
+	 * @return 用户下标, 不存在时返回-1
+	 */
+	private int indexOf(String account) {
+		if (StringUtils.isEmpty(account)) {
+			return -1;
+		}
+		String term = StringUtils.lowerCase(account);
+		for (int i = lowerBound(term); i < terms.length && terms[i].equals(term); i++) {
+			if (StringUtils.equals(accounts[termUsers[i]], account)) {
+				return termUsers[i];
+			}
+		}
+		return -1;
+	}
+
+	private boolean matches(int user, String prefix) {
+		return StringUtils.startsWith(StringUtils.lowerCase(accounts[user]), prefix) || StringUtils.startsWith(StringUtils.lowerCase(realnames[user]), prefix);
+	}
+
+	private SelectOption toOption(int user) {
+		return new SelectOption(realnames[user], accounts[user]);
+	}
+}
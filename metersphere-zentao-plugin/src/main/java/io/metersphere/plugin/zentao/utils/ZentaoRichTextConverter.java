@@ -0,0 +1,198 @@
+package io.metersphere.plugin.zentao.utils;
+
+import lombok.Getter;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * MS与禅道富文本图片标签转换
+ * 正则在创建时预编译, 转换时只遍历一次内容, 只改写图片标签, 标签外的内容原样保留; 线程安全, 可复用
+ */
+public class ZentaoRichTextConverter {
+
+	private static final String IMG_TAG_START = "<img";
+
+	private static final Pattern FILE_ID_PATTERN = Pattern.compile("\\d+");
+
+	/**
+	 * MS富文本图片预览地址前缀
+	 */
+	private final String msPreviewPrefix;
+
+	/**
+	 * 禅道富文本图片地址前缀
+	 */
+	private final String zentaoImgPrefix;
+
+	/**
+	 * 未同步过的MS图片, 分组1为文件Key
+	 */
+	private final Pattern msLocalImgPattern;
+
+	/**
+	 * @param msPreviewPrefix MS富文本图片预览地址前缀
+	 * @param zentaoImgPrefix 禅道富文本图片地址前缀
+	 */
+	public ZentaoRichTextConverter(String msPreviewPrefix, String zentaoImgPrefix) {
+		this.msPreviewPrefix = msPreviewPrefix;
+		this.zentaoImgPrefix = zentaoImgPrefix;
+		this.msLocalImgPattern = Pattern.compile("<img src=\"" + Pattern.quote(msPreviewPrefix) + "/\\d+/([^/\"]+)/true");
+	}
+
+	/**
+	 * 禅道富文本转换为MS富文本
+	 * eg: <img src="/file-read-51.jpg" alt="" /> => <img psrc="/file-read-51.jpg" alt="51" />, 记录需下载的图片
+	 * eg: <img src="/file-read-52.jpg" alt="/bug/attachment/preview/md/pid/fid/true" /> => 已双向同步, 还原MS-URL
+	 *
+	 * @param content     禅道富文本
+	 * @param richFileMap 需下载的图片 {文件ID => 文件名}
+	 * @return MS富文本
+	 */
+	public String toMs(String content, Map<String, String> richFileMap) {
+		StringBuilder result = new StringBuilder(content.length() + 64);
+		int position = 0;
+		int start = content.indexOf(IMG_TAG_START);
+		while (start >= 0) {
+			int end = content.indexOf('>', start);
+			if (end < 0) {
+				break;
+			}
+			result.append(content, position, start);
+			result.append(convertTagToMs(content.substring(start, end + 1), richFileMap));
+			position = end + 1;
+			start = content.indexOf(IMG_TAG_START, position);
+		}
+		result.append(content, position, content.length());
+		return result.toString();
+	}
+
+	/**
+	 * MS富文本转换为禅道富文本, 同时生成回写MS的富文本
+	 *
+	 * @param content       MS富文本
+	 * @param uploadedFiles 已上传至禅道的图片 {MS文件Key => 禅道文件ID}, 为null时不处理未同步的图片
+	 * @return 转换结果
+	 */
+	public Converted toZentao(String content, Map<String, String> uploadedFiles) {
+		StringBuilder zentaoContent = new StringBuilder(content.length() + 64);
+		StringBuilder msContent = new StringBuilder(content.length() + 64);
+		int position = 0;
+		int start = content.indexOf(IMG_TAG_START);
+		while (start >= 0) {
+			int end = content.indexOf('>', start);
+			if (end < 0) {
+				break;
+			}
+			zentaoContent.append(content, position, start);
+			msContent.append(content, position, start);
+			String zentaoTag = convertTagToZentao(content.substring(start, end + 1), uploadedFiles);
+			zentaoContent.append(zentaoTag);
+			// MS-URL, 需同步修改为禅道可识别的URL
+			msContent.append(replacePrefix(replacePrefix(zentaoTag, "src=\"", zentaoImgPrefix, "psrc=\""), "alt=\"", msPreviewPrefix, "src=\""));
+			position = end + 1;
+			start = content.indexOf(IMG_TAG_START, position);
+		}
+		zentaoContent.append(content, position, content.length());
+		msContent.append(content, position, content.length());
+		return new Converted(zentaoContent.toString(), msContent.toString());
+	}
+
+	/**
+	 * 查找未同步过的MS图片引用的文件Key
+	 *
+	 * @param content MS富文本
+	 * @return 文件Key
+	 */
+	public Set<String> findMsLocalFileKeys(String content) {
+		Set<String> fileKeys = new LinkedHashSet<>();
+		int start = content.indexOf(IMG_TAG_START);
+		while (start >= 0) {
+			int end = content.indexOf('>', start);
+			if (end < 0) {
+				break;
+			}
+			String tag = StringUtils.replace(content.substring(start, end + 1), "psrc", "src");
+			if (tag.contains("permalinksrc")) {
+				Matcher matcher = msLocalImgPattern.matcher(tag);
+				if (matcher.lookingAt()) {
+					fileKeys.add(matcher.group(1));
+				}
+			}
+			start = content.indexOf(IMG_TAG_START, end + 1);
+		}
+		return fileKeys;
+	}
+
+	private String convertTagToMs(String tag, Map<String, String> richFileMap) {
+		String psrcStart = "<img psrc=\"" + zentaoImgPrefix;
+		if (tag.startsWith("<img src=\"" + zentaoImgPrefix)) {
+			tag = psrcStart + tag.substring(10 + zentaoImgPrefix.length());
+		} else if (tag.startsWith("<img src=\"{")) {
+			// eg: <img src="{51.jpg}" />
+			tag = psrcStart + StringUtils.remove(tag.substring(11), '}');
+		}
+		// 已双向同步的图片, 还原MS-URL
+		tag = replacePrefix(tag, "alt=\"", msPreviewPrefix, "src=\"");
+		if (tag.startsWith(psrcStart) && tag.endsWith("alt=\"\" />")) {
+			// 禅道本地上传的图片, 记录文件ID供MS下载
+			Matcher fileMatcher = FILE_ID_PATTERN.matcher(tag);
+			if (fileMatcher.find(psrcStart.length())) {
+				String fileId = fileMatcher.group();
+				tag = tag.substring(0, tag.length() - 9) + "alt=\"" + fileId + "\" />";
+				// 禅道富文本中的图片默认命名为*.jpg, *:唯一文件ID, 标识, 整数
+				richFileMap.put(fileId, fileId + ".jpg");
+			}
+		}
+		return tag;
+	}
+
+	private String convertTagToZentao(String tag, Map<String, String> uploadedFiles) {
+		// psrc => src, 图片双向同步过, 直接替换URL即可
+		tag = StringUtils.replace(tag, "psrc", "src");
+		if (uploadedFiles != null) {
+			if (tag.contains("permalinksrc")) {
+				// eg: <img src="/bug/attachment/preview/md/pid/fid/true" permalinksrc="/bug/attachment/preview/md/pid/fid/true">
+				// => <img src="/file-read-zFid.jpg" alt="/bug/attachment/preview/md/pid/fid/true">
+				Matcher matcher = msLocalImgPattern.matcher(tag);
+				if (matcher.lookingAt() && uploadedFiles.get(matcher.group(1)) != null) {
+					tag = "<img src=\"" + zentaoImgPrefix + uploadedFiles.get(matcher.group(1)) + ".jpg" + tag.substring(matcher.end());
+				}
+			}
+			// 保留permalinksrc链接, 同步至MS时备用
+			tag = StringUtils.replace(tag, "permalinksrc", "alt");
+		}
+		// 保留MS-URL中的一些参数{src}
+		return replacePrefix(tag, "src=\"", msPreviewPrefix, "alt=\"");
+	}
+
+	private String replacePrefix(String tag, String attribute, String prefix, String targetAttribute) {
+		return StringUtils.replace(tag, attribute + prefix, targetAttribute + prefix);
+	}
+
+	/**
+	 * MS富文本转换为禅道富文本的结果
+	 */
+	@Getter
+	public static class Converted {
+
+		/**
+		 * 禅道富文本
+		 */
+		private final String zentaoContent;
+
+		/**
+		 * 回写MS的富文本
+		 */
+		private final String msContent;
+
+		private Converted(String zentaoContent, String msContent) {
+			this.zentaoContent = zentaoContent;
+			this.msContent = msContent;
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package io.metersphere.plugin.zentao.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 多租户(不同认证信息)并发使用缓存时相互隔离
+ */
+public class ZentaoClientContextTest {
+
+	private static final String ENDPOINT = "http://zentao.example.com/";
+
+	/**
+	 * "Aa"与"BB"的hashCode相同, 用于验证Key不依赖hashCode
+	 */
+	private static final String[] PASSWORDS = {"Aa", "BB", "AaAa", "BBBB", "AaBB", "BBAa"};
+
+	private static final int THREADS = 32;
+
+	private static final int ROUNDS = 500;
+
+	@Test
+	public void testCacheKeyDistinguishesCredentials() {
+		Set<String> cacheKeys = new HashSet<>();
+		for (String password : PASSWORDS) {
+			assertTrue(cacheKeys.add(new ZentaoClientContext(ENDPOINT, "admin", password).getCacheKey()));
+		}
+		// 分隔符不能造成歧义
+		assertNotEquals(new ZentaoClientContext(ENDPOINT, "a|b", "c").getCacheKey(), new ZentaoClientContext(ENDPOINT, "a", "b|c").getCacheKey());
+		// 地址末尾的"/"不影响Key
+		assertEquals(new ZentaoClientContext(ENDPOINT, "admin", "Aa").getCacheKey(),
+				new ZentaoClientContext("http://zentao.example.com", "admin", "Aa").getCacheKey());
+		// Key中不出现明文密码
+		assertFalse(new ZentaoClientContext(ENDPOINT, "admin", "secret-password").getCacheKey().contains("secret-password"));
+	}
+
+	@Test
+	public void testConcurrentTenantIsolation() throws Exception {
+		List<ZentaoClientContext> tenants = new ArrayList<>();
+		for (String password : PASSWORDS) {
+			tenants.add(new ZentaoClientContext(ENDPOINT, "admin", password));
+		}
+		ConcurrentLinkedQueue<String> errors = new ConcurrentLinkedQueue<>();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < THREADS; t++) {
+				int offset = t;
+				futures.add(executor.submit(() -> {
+					start.await();
+					for (int i = 0; i < ROUNDS; i++) {
+						ZentaoClientContext tenant = tenants.get((offset + i) % tenants.size());
+						// 会话及Token均以租户的认证信息生成, 取到其他租户的即为串用
+						String expected = tenant.getPassword() + "-";
+						ZentaoSessionPool sessionPool = ZentaoSessionPool.getInstance(tenant.getCacheKey());
+						String sessionId = sessionPool.borrow(() -> expected + "session");
+						try {
+							if (!sessionId.startsWith(expected)) {
+								errors.add(tenant.getPassword() + " borrowed " + sessionId);
+							}
+						} finally {
+							sessionPool.giveBack(sessionId, true);
+						}
+						String token = ZentaoRestTokenCache.getToken(tenant.getCacheKey(), () -> expected + "token");
+						if (!token.startsWith(expected)) {
+							errors.add(tenant.getPassword() + " got token " + token);
+						}
+					}
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> future : futures) {
+				future.get(60, TimeUnit.SECONDS);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		assertTrue(errors.isEmpty(), () -> String.join("\n", errors));
+	}
+}